@@ -0,0 +1,64 @@
+package com.team254.lib.geometry;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the SE(2) primitives that every follower and spline routine leans on.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Pose2dBenchmark {
+	private static final int kSamples = 1024;
+
+	private final Twist2d[] twists = new Twist2d[kSamples];
+	private final Pose2d[] poses = new Pose2d[kSamples];
+	private int index = 0;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(5940);
+		for (int i = 0; i < kSamples; i++) {
+			twists[i] = new Twist2d(random.nextDouble() * 2.0, random.nextDouble() - 0.5,
+					(random.nextDouble() - 0.5) * Math.PI);
+			poses[i] = new Pose2d(random.nextDouble() * 10.0, random.nextDouble() * 10.0,
+					Rotation2d.fromRadians((random.nextDouble() - 0.5) * 2.0 * Math.PI));
+		}
+	}
+
+	private int next() {
+		index = (index + 1) & (kSamples - 1);
+		return index;
+	}
+
+	@Benchmark
+	public Pose2d exp() {
+		return Pose2d.exp(twists[next()]);
+	}
+
+	@Benchmark
+	public Twist2d log() {
+		return Pose2d.log(poses[next()]);
+	}
+
+	@Benchmark
+	public Pose2d interpolate() {
+		final int i = next();
+		return poses[i].interpolate(poses[(i + 1) & (kSamples - 1)], 0.37);
+	}
+}
@@ -0,0 +1,73 @@
+package com.team254.lib.spline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.team254.lib.geometry.Pose2d;
+import com.team254.lib.geometry.Pose2dWithCurvature;
+import com.team254.lib.geometry.Rotation2d;
+
+/**
+ * Measures spline optimization and parameterization for a typical multi-waypoint autonomous path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SplineBenchmark {
+	public static final List<Pose2d> kWaypoints = Arrays.asList(
+			new Pose2d(0.0, 0.0, Rotation2d.fromDegrees(0.0)),
+			new Pose2d(100.0, 20.0, Rotation2d.fromDegrees(30.0)),
+			new Pose2d(180.0, 80.0, Rotation2d.fromDegrees(60.0)),
+			new Pose2d(220.0, 180.0, Rotation2d.fromDegrees(90.0)),
+			new Pose2d(180.0, 260.0, Rotation2d.fromDegrees(170.0)));
+
+	private List<QuinticHermiteSpline> unoptimized;
+	private List<QuinticHermiteSpline> optimized;
+
+	public static List<QuinticHermiteSpline> makeSplines(List<Pose2d> waypoints) {
+		List<QuinticHermiteSpline> splines = new ArrayList<>(waypoints.size() - 1);
+		for (int i = 1; i < waypoints.size(); ++i) {
+			splines.add(new QuinticHermiteSpline(waypoints.get(i - 1), waypoints.get(i)));
+		}
+		return splines;
+	}
+
+	@Setup(Level.Trial)
+	public void setupOptimized() {
+		optimized = makeSplines(kWaypoints);
+		QuinticHermiteSpline.optimizeSpline(optimized);
+	}
+
+	// optimizeSpline mutates its input, so every invocation needs fresh splines.
+	@Setup(Level.Invocation)
+	public void setupUnoptimized() {
+		unoptimized = makeSplines(kWaypoints);
+	}
+
+	@Benchmark
+	public double optimizeSpline() {
+		return QuinticHermiteSpline.optimizeSpline(unoptimized);
+	}
+
+	@Benchmark
+	public List<Pose2dWithCurvature> parameterizeSplines() {
+		return SplineGenerator.parameterizeSplines(optimized, 2.0, 0.25, 0.1);
+	}
+}
@@ -0,0 +1,82 @@
+package com.team254.lib.trajectory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.team254.lib.geometry.Pose2dWithCurvature;
+import com.team254.lib.spline.SplineBenchmark;
+import com.team254.lib.trajectory.timing.CentripetalAccelerationConstraint;
+import com.team254.lib.trajectory.timing.TimedState;
+import com.team254.lib.trajectory.timing.TimingConstraint;
+import com.team254.lib.trajectory.timing.TimingUtil;
+
+/**
+ * Measures time parameterization and the per-loop sampling done by followers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TrajectoryBenchmark {
+	private static final int kSamples = 1024;
+
+	private DistanceView<Pose2dWithCurvature> distanceView;
+	private TimedView<Pose2dWithCurvature> timedView;
+	private List<TimingConstraint<Pose2dWithCurvature>> constraints;
+	private final double[] distances = new double[kSamples];
+	private final double[] times = new double[kSamples];
+	private int index = 0;
+
+	@Setup
+	public void setup() {
+		Trajectory<Pose2dWithCurvature> trajectory = TrajectoryUtil.trajectoryFromSplineWaypoints(
+				SplineBenchmark.kWaypoints, 2.0, 0.25, 0.1);
+		distanceView = new DistanceView<>(trajectory);
+		constraints = Arrays.asList(new CentripetalAccelerationConstraint(110.0));
+		timedView = new TimedView<>(timeParameterize());
+
+		Random random = new Random(5940);
+		for (int i = 0; i < kSamples; i++) {
+			distances[i] = random.nextDouble() * distanceView.last_interpolant();
+			times[i] = random.nextDouble() * timedView.last_interpolant();
+		}
+	}
+
+	private int next() {
+		index = (index + 1) & (kSamples - 1);
+		return index;
+	}
+
+	@Benchmark
+	public Trajectory<TimedState<Pose2dWithCurvature>> timeParameterize() {
+		return TimingUtil.timeParameterizeTrajectory(false, distanceView, 2.0, constraints, 0.0, 0.0,
+				120.0, 100.0, 100.0, 1);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public TrajectorySamplePoint<Pose2dWithCurvature> distanceViewSample() {
+		return distanceView.sample(distances[next()]);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public TrajectorySamplePoint<TimedState<Pose2dWithCurvature>> timedViewSample() {
+		return timedView.sample(times[next()]);
+	}
+}
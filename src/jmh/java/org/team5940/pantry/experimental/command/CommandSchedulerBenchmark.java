@@ -0,0 +1,57 @@
+package org.team5940.pantry.experimental.command;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one scheduler iteration with a robot-sized set of subsystems, each running a
+ * default command.  Needs the desktop HAL natives, see the jmh task in build.gradle.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CommandSchedulerBenchmark {
+	@Param({"4", "12"})
+	public int subsystemCount;
+
+	private CommandScheduler scheduler;
+	private long counter = 0;
+
+	@Setup
+	public void setup() {
+		// A private instance keeps the benchmark independent of the singleton.
+		scheduler = new CommandScheduler();
+		for (int i = 0; i < subsystemCount; i++) {
+			Subsystem subsystem = new Subsystem() {
+				@Override
+				public void periodic() {
+					counter++;
+				}
+			};
+			scheduler.registerSubsystem(subsystem);
+			scheduler.setDefaultCommand(subsystem, new RunCommand(() -> counter++, subsystem));
+		}
+		// The first run schedules the default commands.
+		scheduler.run();
+	}
+
+	@Benchmark
+	public long run() {
+		scheduler.run();
+		return counter;
+	}
+}
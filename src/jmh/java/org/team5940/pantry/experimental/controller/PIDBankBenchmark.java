@@ -0,0 +1,89 @@
+package org.team5940.pantry.experimental.controller;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.team5940.pantry.lib.time.VirtualTime;
+
+/**
+ * Measures updating a group of controllers, as one PIDBank and as separate PIDControllers.  Needs
+ * the desktop HAL natives, see the jmh task in build.gradle.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PIDBankBenchmark {
+	@Param({"4", "8", "16"})
+	private int size;
+
+	private PIDBank bank;
+	private PIDController[] controllers;
+	private double[] measurements;
+	private double[] outputs;
+
+	@Setup
+	public void setup() {
+		measurements = new double[size];
+		outputs = new double[size];
+		bank = new PIDBank(new VirtualTime(), size, 0.005, new PIDBank.IO() {
+			@Override
+			public void read(double[] references, double[] measured) {
+				for (int i = 0; i < size; i++) {
+					references[i] = 90.0;
+				}
+				System.arraycopy(measurements, 0, measured, 0, size);
+			}
+
+			@Override
+			public void write(double[] output) {
+				System.arraycopy(output, 0, outputs, 0, size);
+			}
+		});
+		bank.setPID(0.8, 0.05, 0.02);
+		bank.setContinuous(360.0);
+		controllers = new PIDController[size];
+		for (int i = 0; i < size; i++) {
+			controllers[i] = new PIDController(0.8, 0.05, 0.02, 0.005);
+			controllers[i].setInputRange(-180.0, 180.0);
+			controllers[i].setContinuous();
+			measurements[i] = i * 20.0;
+		}
+	}
+
+	private void advanceMeasurements() {
+		for (int i = 0; i < size; i++) {
+			double measurement = measurements[i] + 0.25;
+			measurements[i] = measurement > 180.0 ? measurement - 360.0 : measurement;
+		}
+	}
+
+	@Benchmark
+	public double[] bank() {
+		advanceMeasurements();
+		bank.update();
+		return outputs;
+	}
+
+	@Benchmark
+	public double[] controllers() {
+		advanceMeasurements();
+		for (int i = 0; i < size; i++) {
+			outputs[i] = controllers[i].calculate(90.0, measurements[i]);
+		}
+		return outputs;
+	}
+}
@@ -0,0 +1,45 @@
+package org.team5940.pantry.experimental.controller;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a single controller update.  Needs the desktop HAL natives, see the jmh task in
+ * build.gradle.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PIDControllerBenchmark {
+	private PIDController controller;
+	private double measurement = 0.0;
+
+	@Setup
+	public void setup() {
+		controller = new PIDController(0.8, 0.05, 0.02, 0.005);
+		controller.setInputRange(-180.0, 180.0);
+		controller.setContinuous();
+	}
+
+	@Benchmark
+	public double calculate() {
+		measurement += 0.25;
+		if (measurement > 180.0) {
+			measurement -= 360.0;
+		}
+		return controller.calculate(90.0, measurement);
+	}
+}
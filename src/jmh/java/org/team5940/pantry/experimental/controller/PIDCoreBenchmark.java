@@ -0,0 +1,67 @@
+package org.team5940.pantry.experimental.controller;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.team1323.lib.util.SynchronousPIDF;
+
+/**
+ * Measures one step of the shared PID core, alone and behind SynchronousPIDF, with a varying
+ * time step.  Compare with {@link PIDControllerBenchmark} for the cost of the config snapshot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PIDCoreBenchmark {
+	private PIDCore core;
+	private SynchronousPIDF pidf;
+	private double measurement = 0.0;
+	private int step = 0;
+
+	@Setup
+	public void setup() {
+		core = new PIDCore(0.8, 0.05, 0.02);
+		core.setF(0.005);
+		core.setContinuous(true, 360.0);
+		pidf = new SynchronousPIDF(0.8, 0.05, 0.02, 0.005);
+		pidf.setInputRange(-180.0, 180.0);
+		pidf.setContinuous();
+		pidf.setSetpoint(90.0);
+	}
+
+	private double nextMeasurement() {
+		measurement += 0.25;
+		if (measurement > 180.0) {
+			measurement -= 360.0;
+		}
+		return measurement;
+	}
+
+	// Alternates between an on-time and a late loop
+	private double nextDt() {
+		return (++step & 1) == 0 ? 0.005 : 0.0065;
+	}
+
+	@Benchmark
+	public double core() {
+		return core.calculate(90.0, nextMeasurement(), nextDt());
+	}
+
+	@Benchmark
+	public double synchronousPIDF() {
+		return pidf.calculate(nextMeasurement(), nextDt());
+	}
+}
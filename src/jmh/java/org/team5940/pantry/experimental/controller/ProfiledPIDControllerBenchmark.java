@@ -0,0 +1,55 @@
+package org.team5940.pantry.experimental.controller;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a profiled controller update while following a profile, and generating a new S-curve
+ * profile on a goal change.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProfiledPIDControllerBenchmark {
+	private ProfiledPIDController controller;
+	private MotionProfile profile;
+	private double measurement = 0.0;
+	private double goal = 5.0;
+
+	@Setup
+	public void setup() {
+		controller = new ProfiledPIDController(0.8, 0.05, 0.02, 2.0, 4.0, 40.0, 0.005);
+		controller.setFeedForward(0.3, 0.05);
+		profile = new MotionProfile(2.0, 4.0, 40.0);
+	}
+
+	@Benchmark
+	public double calculate() {
+		measurement += 0.001;
+		if (measurement > 5.0) {
+			measurement = 0.0;
+			controller.reset();
+		}
+		return controller.calculate(5.0, measurement);
+	}
+
+	@Benchmark
+	public double generate() {
+		goal = -goal;
+		profile.generate(0.1, 0.5, goal);
+		return profile.getTotalTime();
+	}
+}
@@ -0,0 +1,117 @@
+package com.team1323.lib.math.vectors;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.team254.lib.geometry.Translation2d;
+
+/**
+ * An axis-aligned rectangle on the field.
+ */
+public class BoundingBox {
+	protected final double minX, minY, maxX, maxY;
+
+	public BoundingBox(double minX, double minY, double maxX, double maxY) {
+		if (maxX < minX || maxY < minY) {
+			throw new IllegalArgumentException("Bounding box max corner must not be below its min corner");
+		}
+		this.minX = minX;
+		this.minY = minY;
+		this.maxX = maxX;
+		this.maxY = maxY;
+	}
+
+	public BoundingBox(Translation2d corner, Translation2d oppositeCorner) {
+		this(Math.min(corner.x(), oppositeCorner.x()), Math.min(corner.y(), oppositeCorner.y()),
+				Math.max(corner.x(), oppositeCorner.x()), Math.max(corner.y(), oppositeCorner.y()));
+	}
+
+	/**
+	 * @return The smallest box containing all of the points.
+	 */
+	public static BoundingBox of(List<Translation2d> points) {
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for (Translation2d p : points) {
+			minX = Math.min(minX, p.x());
+			minY = Math.min(minY, p.y());
+			maxX = Math.max(maxX, p.x());
+			maxY = Math.max(maxY, p.y());
+		}
+		return new BoundingBox(minX, minY, maxX, maxY);
+	}
+
+	/**
+	 * Bounds the part of the angle at center, between the rays through a and b, that lies within
+	 * radius of the line through a and b. This is the region a convex polygon's side influences in
+	 * fields like {@link PolyCone} and {@link PolyCirculationVectorField}.
+	 */
+	public static BoundingBox ofSideRegion(Translation2d center, Translation2d a, Translation2d b, double radius) {
+		double h = center.distanceToLine(a, b);
+		if (!(h > 1E-9)) {
+			// Degenerate side through the center; fall back to something safely large
+			return of(Arrays.asList(center, a, b)).expand(radius);
+		}
+		// Where the rays from center through a and b cross the line radius beyond the side
+		double scale = (h + radius) / h;
+		Translation2d outerA = center.translateBy(new Translation2d(center, a).scale(scale));
+		Translation2d outerB = center.translateBy(new Translation2d(center, b).scale(scale));
+		return of(Arrays.asList(center, outerA, outerB));
+	}
+
+	public double minX() {
+		return minX;
+	}
+
+	public double minY() {
+		return minY;
+	}
+
+	public double maxX() {
+		return maxX;
+	}
+
+	public double maxY() {
+		return maxY;
+	}
+
+	public double width() {
+		return maxX - minX;
+	}
+
+	public double height() {
+		return maxY - minY;
+	}
+
+	public boolean contains(double x, double y) {
+		return x >= minX && x <= maxX && y >= minY && y <= maxY;
+	}
+
+	public boolean contains(Translation2d here) {
+		return contains(here.x(), here.y());
+	}
+
+	public boolean intersects(BoundingBox other) {
+		return other.minX <= maxX && other.maxX >= minX && other.minY <= maxY && other.maxY >= minY;
+	}
+
+	/**
+	 * @return The smallest box containing both boxes.
+	 */
+	public BoundingBox union(BoundingBox other) {
+		return new BoundingBox(Math.min(minX, other.minX), Math.min(minY, other.minY),
+				Math.max(maxX, other.maxX), Math.max(maxY, other.maxY));
+	}
+
+	/**
+	 * @return This box grown by margin on every side.
+	 */
+	public BoundingBox expand(double margin) {
+		return new BoundingBox(minX - margin, minY - margin, maxX + margin, maxY + margin);
+	}
+
+	@Override
+	public String toString() {
+		return "[" + new Translation2d(minX, minY) + ", " + new Translation2d(maxX, maxY) + "]";
+	}
+}
@@ -0,0 +1,207 @@
+package com.team1323.lib.math.vectors;
+
+import java.util.stream.IntStream;
+
+import com.team254.lib.geometry.Translation2d;
+
+/**
+ * A VectorField sampled once on a regular grid, for fields that are expensive to evaluate but
+ * don't change during a match.
+ * <p>
+ * The source field is evaluated at every grid point inside a bounding box, in parallel, when the
+ * cache is built. Queries inside the box bilinearly interpolate the four surrounding grid points;
+ * queries outside it, or next to a point where the source field is undefined, go to the source
+ * field. The interpolated vector is rescaled to the interpolated length, so a unit vector field
+ * stays a unit vector field. Use {@link #estimateError()} to check that the resolution is fine
+ * enough.
+ * <p>
+ * The source field must be safe to evaluate from several threads at once while the cache is built.
+ */
+public class CachedVectorField extends VectorField {
+	protected final VectorField source;
+	protected final BoundingBox box;
+	protected final int columns, rows;
+	protected final double cellWidth, cellHeight;
+	// Row-major, rows * columns
+	protected final double[] vx, vy, norm;
+
+	/**
+	 * @param source     The field to cache.
+	 * @param box        Where to cache it.
+	 * @param resolution The largest distance between neighbouring grid points.
+	 */
+	public CachedVectorField(VectorField source, BoundingBox box, double resolution) {
+		if (!(resolution > 0)) {
+			throw new IllegalArgumentException("Resolution must be positive");
+		}
+		this.source = source;
+		this.box = box;
+		columns = Math.max(2, (int) Math.ceil(box.width() / resolution) + 1);
+		rows = Math.max(2, (int) Math.ceil(box.height() / resolution) + 1);
+		cellWidth = box.width() / (columns - 1);
+		cellHeight = box.height() / (rows - 1);
+		vx = new double[rows * columns];
+		vy = new double[rows * columns];
+		norm = new double[rows * columns];
+
+		IntStream.range(0, rows).parallel().forEach(row -> {
+			double y = box.minY() + row * cellHeight;
+			double[] v = new double[2];
+			for (int column = 0; column < columns; column++) {
+				source.getVector(box.minX() + column * cellWidth, y, v);
+				int i = row * columns + column;
+				vx[i] = v[0];
+				vy[i] = v[1];
+				norm[i] = Math.hypot(v[0], v[1]);
+			}
+		});
+	}
+
+	@Override
+	public BoundingBox getSupport() {
+		return source.getSupport();
+	}
+
+	public VectorField getSource() {
+		return source;
+	}
+
+	public BoundingBox getBox() {
+		return box;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	@Override
+	public Translation2d getVector(Translation2d here) {
+		double[] out = new double[2];
+		if (!interpolate(here.x(), here.y(), out)) {
+			return source.getVector(here);
+		}
+		return new Translation2d(out[0], out[1]);
+	}
+
+	@Override
+	public void getVector(double x, double y, double[] out) {
+		if (!interpolate(x, y, out)) {
+			source.getVector(x, y, out);
+		}
+	}
+
+	/**
+	 * Bilinear lookup in the grid.
+	 *
+	 * @return false, and out is untouched, if the point is outside the box or next to a point where
+	 *         the source field is undefined
+	 */
+	private boolean interpolate(double hereX, double hereY, double[] out) {
+		if (!box.contains(hereX, hereY)) {
+			return false;
+		}
+		double gx = (hereX - box.minX()) / cellWidth;
+		double gy = (hereY - box.minY()) / cellHeight;
+		// Points on the max edges use the last cell
+		int column = Math.min((int) gx, columns - 2);
+		int row = Math.min((int) gy, rows - 2);
+		double tx = gx - column;
+		double ty = gy - row;
+
+		int i00 = row * columns + column;
+		int i10 = i00 + 1;
+		int i01 = i00 + columns;
+		int i11 = i01 + 1;
+		double w00 = (1 - tx) * (1 - ty), w10 = tx * (1 - ty), w01 = (1 - tx) * ty, w11 = tx * ty;
+
+		double x = w00 * vx[i00] + w10 * vx[i10] + w01 * vx[i01] + w11 * vx[i11];
+		double y = w00 * vy[i00] + w10 * vy[i10] + w01 * vy[i01] + w11 * vy[i11];
+		double length = w00 * norm[i00] + w10 * norm[i10] + w01 * norm[i01] + w11 * norm[i11];
+		if (Double.isNaN(x) || Double.isNaN(y) || Double.isNaN(length)) {
+			return false;
+		}
+		double n = Math.hypot(x, y);
+		if (n < 1E-12) {
+			out[0] = x;
+			out[1] = y;
+		} else {
+			out[0] = x * length / n;
+			out[1] = y * length / n;
+		}
+		return true;
+	}
+
+	/**
+	 * Compares the cache with the source field at the center of every grid cell, which is as far as
+	 * a query can get from the grid points. This costs one source evaluation per cell, about as
+	 * much as building the cache.
+	 */
+	public ErrorEstimate estimateError() {
+		int cells = (rows - 1) * (columns - 1);
+		double[] errors = new double[cells];
+		IntStream.range(0, rows - 1).parallel().forEach(row -> {
+			double y = box.minY() + (row + 0.5) * cellHeight;
+			for (int column = 0; column < columns - 1; column++) {
+				Translation2d here = new Translation2d(box.minX() + (column + 0.5) * cellWidth, y);
+				Translation2d exact = source.getVector(here);
+				Translation2d cached = getVector(here);
+				errors[row * (columns - 1) + column] = Math.hypot(cached.x() - exact.x(), cached.y() - exact.y());
+			}
+		});
+
+		double sum = 0.0, max = 0.0;
+		int worst = 0, counted = 0;
+		for (int i = 0; i < cells; i++) {
+			if (Double.isNaN(errors[i]))
+				continue;
+			sum += errors[i] * errors[i];
+			counted++;
+			if (errors[i] > max) {
+				max = errors[i];
+				worst = i;
+			}
+		}
+		Translation2d worstPoint = new Translation2d(box.minX() + (worst % (columns - 1) + 0.5) * cellWidth,
+				box.minY() + (worst / (columns - 1) + 0.5) * cellHeight);
+		return new ErrorEstimate(max, counted == 0 ? 0.0 : Math.sqrt(sum / counted), worstPoint);
+	}
+
+	/**
+	 * Error of a cached field against its source, as the length of the difference between the two
+	 * vectors.
+	 */
+	public static class ErrorEstimate {
+		protected final double max, rms;
+		protected final Translation2d worstPoint;
+
+		public ErrorEstimate(double max, double rms, Translation2d worstPoint) {
+			this.max = max;
+			this.rms = rms;
+			this.worstPoint = worstPoint;
+		}
+
+		public double getMax() {
+			return max;
+		}
+
+		public double getRms() {
+			return rms;
+		}
+
+		/**
+		 * @return Where the largest error was found.
+		 */
+		public Translation2d getWorstPoint() {
+			return worstPoint;
+		}
+
+		@Override
+		public String toString() {
+			return "max " + max + " at " + worstPoint + ", rms " + rms;
+		}
+	}
+}
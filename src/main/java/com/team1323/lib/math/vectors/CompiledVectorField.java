@@ -0,0 +1,161 @@
+package com.team1323.lib.math.vectors;
+
+import com.team1323.lib.math.vectors.VectorFieldBuilder.Op;
+import com.team254.lib.geometry.Translation2d;
+
+/**
+ * A composition of vector fields flattened into an array of nodes, built by
+ * {@link VectorFieldBuilder#compile(VectorField)}.
+ * <p>
+ * A query walks the nodes once in order, keeping every intermediate vector in a scratch array, so
+ * each subfield is evaluated exactly once and nothing is allocated. The batch form works node by
+ * node over a block of points at a time, which keeps each leaf's code hot across the block.
+ */
+public class CompiledVectorField extends VectorField {
+	private static final int kBlockSize = 64;
+
+	protected final Op[] ops;
+	protected final VectorField[] leaves;
+	protected final int[][] children;
+	protected final double[] scales;
+	// Per node, where it may be nonzero; null if anywhere
+	protected final BoundingBox[] supports;
+	protected final int root;
+
+	// Per thread: x and y of every node, for a single point or for a block of points
+	private final ThreadLocal<double[]> scratch;
+	private final ThreadLocal<double[]> blockScratch;
+
+	protected final BoundingBox support;
+
+	CompiledVectorField(Op[] ops, VectorField[] leaves, int[][] children, double[] scales, BoundingBox[] supports,
+			BoundingBox support) {
+		this.ops = ops;
+		this.leaves = leaves;
+		this.children = children;
+		this.scales = scales;
+		this.supports = supports;
+		root = ops.length - 1;
+		this.support = support;
+		scratch = ThreadLocal.withInitial(() -> new double[2 * ops.length]);
+		blockScratch = ThreadLocal.withInitial(() -> new double[2 * ops.length * kBlockSize]);
+	}
+
+	@Override
+	public BoundingBox getSupport() {
+		return support;
+	}
+
+	/**
+	 * @return The number of distinct fields and operations in the composition.
+	 */
+	public int size() {
+		return ops.length;
+	}
+
+	@Override
+	public Translation2d getVector(Translation2d here) {
+		double[] out = new double[2];
+		getVector(here.x(), here.y(), out);
+		return new Translation2d(out[0], out[1]);
+	}
+
+	@Override
+	public void getVector(double x, double y, double[] out) {
+		double[] v = scratch.get();
+		for (int node = 0; node < ops.length; node++) {
+			BoundingBox nodeSupport = supports[node];
+			if (nodeSupport != null && !nodeSupport.contains(x, y)) {
+				v[2 * node] = 0.0;
+				v[2 * node + 1] = 0.0;
+				continue;
+			}
+			int[] c = children[node];
+			switch (ops[node]) {
+			case LEAF:
+				leaves[node].getVector(x, y, out);
+				v[2 * node] = out[0];
+				v[2 * node + 1] = out[1];
+				break;
+			case SUM:
+				double sx = 0.0, sy = 0.0;
+				for (int i = 0; i < c.length; i++) {
+					sx += v[2 * c[i]];
+					sy += v[2 * c[i] + 1];
+				}
+				normalize(sx, sy, out);
+				v[2 * node] = out[0];
+				v[2 * node + 1] = out[1];
+				break;
+			case INVERSE:
+				v[2 * node] = -v[2 * c[0]];
+				v[2 * node + 1] = -v[2 * c[0] + 1];
+				break;
+			case SCALE:
+				v[2 * node] = scales[node] * v[2 * c[0]];
+				v[2 * node + 1] = scales[node] * v[2 * c[0] + 1];
+				break;
+			}
+		}
+		out[0] = v[2 * root];
+		out[1] = v[2 * root + 1];
+	}
+
+	@Override
+	public void getVectors(double[] xs, double[] ys, double[] outX, double[] outY, int from, int to) {
+		double[] v = blockScratch.get();
+		double[] out = new double[2];
+		for (int start = from; start < to; start += kBlockSize) {
+			int count = Math.min(kBlockSize, to - start);
+			// Node n's vector for the j-th point of the block is at ((n * kBlockSize + j) * 2)
+			for (int node = 0; node < ops.length; node++) {
+				int[] c = children[node];
+				int base = node * kBlockSize;
+				BoundingBox nodeSupport = supports[node];
+				switch (ops[node]) {
+				case LEAF:
+					VectorField leaf = leaves[node];
+					for (int j = 0; j < count; j++) {
+						if (nodeSupport != null && !nodeSupport.contains(xs[start + j], ys[start + j])) {
+							out[0] = 0.0;
+							out[1] = 0.0;
+						} else {
+							leaf.getVector(xs[start + j], ys[start + j], out);
+						}
+						v[2 * (base + j)] = out[0];
+						v[2 * (base + j) + 1] = out[1];
+					}
+					break;
+				case SUM:
+					for (int j = 0; j < count; j++) {
+						double sx = 0.0, sy = 0.0;
+						for (int i = 0; i < c.length; i++) {
+							sx += v[2 * (c[i] * kBlockSize + j)];
+							sy += v[2 * (c[i] * kBlockSize + j) + 1];
+						}
+						normalize(sx, sy, out);
+						v[2 * (base + j)] = out[0];
+						v[2 * (base + j) + 1] = out[1];
+					}
+					break;
+				case INVERSE:
+					for (int j = 0; j < count; j++) {
+						v[2 * (base + j)] = -v[2 * (c[0] * kBlockSize + j)];
+						v[2 * (base + j) + 1] = -v[2 * (c[0] * kBlockSize + j) + 1];
+					}
+					break;
+				case SCALE:
+					for (int j = 0; j < count; j++) {
+						v[2 * (base + j)] = scales[node] * v[2 * (c[0] * kBlockSize + j)];
+						v[2 * (base + j) + 1] = scales[node] * v[2 * (c[0] * kBlockSize + j) + 1];
+					}
+					break;
+				}
+			}
+			for (int j = 0; j < count; j++) {
+				outX[start + j] = v[2 * (root * kBlockSize + j)];
+				outY[start + j] = v[2 * (root * kBlockSize + j) + 1];
+			}
+		}
+	}
+}
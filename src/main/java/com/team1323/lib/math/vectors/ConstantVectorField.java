@@ -12,4 +12,10 @@ public class ConstantVectorField extends VectorField {
 	public Translation2d getVector(Translation2d here) {
 		return thatWay;
 	}
+
+	@Override
+	public void getVector(double x, double y, double[] out) {
+		out[0] = thatWay.x();
+		out[1] = thatWay.y();
+	}
 }
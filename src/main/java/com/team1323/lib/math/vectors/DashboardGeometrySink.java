@@ -0,0 +1,56 @@
+package com.team1323.lib.math.vectors;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.team254.lib.geometry.Translation2d;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Traces polygons on the dashboard's "Path X"/"Path Y" entries, one vertex at a time with a short
+ * delay so the plot can keep up. The tracing happens on a background thread, so
+ * {@link #polygon(List)} never blocks; polygons are dropped if too many are waiting.
+ */
+public class DashboardGeometrySink implements GeometrySink {
+	private static final int kQueueSize = 64;
+	private static final double kVertexDelay = 0.1;
+
+	private final BlockingQueue<List<Translation2d>> queue = new ArrayBlockingQueue<>(kQueueSize);
+	private Thread thread;
+
+	@Override
+	public void polygon(List<Translation2d> vertices) {
+		// Nothing to trace, and an empty list would kill the tracing thread
+		if (vertices.isEmpty())
+			return;
+		if (queue.offer(vertices)) {
+			start();
+		}
+	}
+
+	private synchronized void start() {
+		if (thread != null)
+			return;
+		thread = new Thread(() -> {
+			try {
+				while (!Thread.currentThread().isInterrupted()) {
+					List<Translation2d> vertices = queue.take();
+					// Close the polygon by returning to the first vertex
+					for (int i = 0; i <= vertices.size(); i++) {
+						Translation2d vertex = vertices.get(i % vertices.size());
+						SmartDashboard.putNumber("Path X", vertex.x());
+						SmartDashboard.putNumber("Path Y", vertex.y());
+						Timer.delay(kVertexDelay);
+					}
+				}
+			} catch (InterruptedException e) {
+				// Exit quietly
+			}
+		}, "DashboardGeometrySink");
+		thread.setDaemon(true);
+		thread.start();
+	}
+}
@@ -0,0 +1,16 @@
+package com.team1323.lib.math.vectors;
+
+import java.util.List;
+
+import com.team254.lib.geometry.Translation2d;
+
+/**
+ * Somewhere to send the geometry of a field for debugging, e.g. {@link PolyCone#publish(GeometrySink)}.
+ * Implementations must return quickly; anything slow belongs on another thread.
+ */
+public interface GeometrySink {
+	/**
+	 * @param vertices The corners of a closed polygon, in order.
+	 */
+	public void polygon(List<Translation2d> vertices);
+}
@@ -1,5 +1,6 @@
 package com.team1323.lib.math.vectors;
 
+import java.util.function.DoubleBinaryOperator;
 import java.util.function.Function;
 
 import com.team254.lib.geometry.Translation2d;
@@ -18,10 +19,23 @@ public class GuidingPolynomialVectorField extends VectorField {
 		if (isReversed)
 			direction = -1;
 		k = k_;
+		kPrimitive = (x, y) -> k_.apply(new Translation2d(x, y));
+	}
+
+	/**
+	 * Same as above, but with a gain that doesn't box, for use in control loops.
+	 */
+	public GuidingPolynomialVectorField(double[] coeffs, boolean isReversed, DoubleBinaryOperator k_) {
+		fc = coeffs;
+		setDfc(fc);
+		if (isReversed)
+			direction = -1;
+		k = here -> k_.applyAsDouble(here.x(), here.y());
+		kPrimitive = k_;
 	}
 
 	public GuidingPolynomialVectorField(double[] coeffs) {
-		this(coeffs, false, here -> 1.0);
+		this(coeffs, false, (x, y) -> 1.0);
 	}
 
 	public GuidingPolynomialVectorField(double[] coeffs, Function<Translation2d, Double> k_) {
@@ -67,6 +81,7 @@ public class GuidingPolynomialVectorField extends VectorField {
 
 	/** Lower values of k mean more following, less approaching */
 	protected Function<Translation2d, Double> k;
+	protected DoubleBinaryOperator kPrimitive;
 
 	protected Translation2d tau(Translation2d here) {
 		Translation2d nv = n(here);
@@ -76,4 +91,26 @@ public class GuidingPolynomialVectorField extends VectorField {
 	public Translation2d getVector(Translation2d here) {
 		return (new Translation2d(n(here).scale(k.apply(here) * e(here)), tau(here))).normalize();
 	}
+
+	// With n = (-f'(x), 1) and tau = direction * (1, f'(x)), the field is tau - k * e * n
+
+	@Override
+	public void getVector(double x, double y, double[] out) {
+		double slope = f(dfc, x);
+		double ke = kPrimitive.applyAsDouble(x, y) * psi(y - f(fc, x));
+		normalize(direction + ke * slope, direction * slope - ke, out);
+	}
+
+	@Override
+	public void getVectors(double[] xs, double[] ys, double[] outX, double[] outY, int from, int to) {
+		double[] out = new double[2];
+		for (int i = from; i < to; i++) {
+			double x = xs[i];
+			double slope = f(dfc, x);
+			double ke = kPrimitive.applyAsDouble(x, ys[i]) * psi(ys[i] - f(fc, x));
+			normalize(direction + ke * slope, direction * slope - ke, out);
+			outX[i] = out[0];
+			outY[i] = out[1];
+		}
+	}
 }
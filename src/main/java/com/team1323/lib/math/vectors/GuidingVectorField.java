@@ -1,5 +1,6 @@
 package com.team1323.lib.math.vectors;
 
+import java.util.function.DoubleBinaryOperator;
 import java.util.function.Function;
 
 import com.team254.lib.geometry.Translation2d;
@@ -28,14 +29,26 @@ public class GuidingVectorField extends VectorField {
 		if (isReversed)
 			direction = -1;
 		k = k_;
+		kPrimitive = (x, y) -> k_.apply(new Translation2d(x, y));
+	}
+
+	/**
+	 * Same as above, but with a gain that doesn't box, for use in control loops.
+	 */
+	public GuidingVectorField(Surface surface_, boolean isReversed, DoubleBinaryOperator k_) {
+		surface = surface_;
+		if (isReversed)
+			direction = -1;
+		k = here -> k_.applyAsDouble(here.x(), here.y());
+		kPrimitive = k_;
 	}
 
 	public GuidingVectorField(Surface surface_) {
-		this(surface_, false, here -> 1.0);
+		this(surface_, false, (x, y) -> 1.0);
 	}
 
 	public GuidingVectorField(Surface surface_, boolean isReversed) {
-		this(surface_, isReversed, here -> 1.0);
+		this(surface_, isReversed, (x, y) -> 1.0);
 	}
 
 	public GuidingVectorField(Surface surface_, Function<Translation2d, Double> k_) {
@@ -64,6 +77,10 @@ public class GuidingVectorField extends VectorField {
 	} // surface.f is phi from the paper
 
 	protected Function<Translation2d, Double> k;
+	protected DoubleBinaryOperator kPrimitive;
+
+	// f, dfdx, dfdy of the surface; one per thread so fields can be evaluated in parallel
+	private static final ThreadLocal<double[]> scratch = ThreadLocal.withInitial(() -> new double[3]);
 
 	protected Translation2d tau(Translation2d here) {
 		Translation2d nv = n(here);
@@ -72,7 +89,46 @@ public class GuidingVectorField extends VectorField {
 		return tv;
 	}
 
+	// Where the surface is flat the field is zero, so it has the same support
+	@Override
+	public BoundingBox getSupport() {
+		return surface.getSupport();
+	}
+
+	// Goes through n(), tau(), e() and k, so subclasses that override them keep working
 	public Translation2d getVector(Translation2d here) {
 		return (new Translation2d(n(here).scale(-k.apply(here) * e(here)), tau(here))).normalize();
 	}
+
+	/**
+	 * Evaluates the surface and kPrimitive directly, without going through n(), tau(), e() or k.
+	 * Subclasses that override any of those must override this and
+	 * {@link #getVectors(double[], double[], double[], double[], int, int)} to match.
+	 */
+	@Override
+	public void getVector(double x, double y, double[] out) {
+		double[] s = scratch.get();
+		surface.evaluate(x, y, s);
+		double e = psi(s[0]);
+		double nx = s[1], ny = s[2];
+		double scale = -kPrimitive.applyAsDouble(x, y) * e;
+		// tau + k * e * n, normalized
+		double vx = ny * direction - nx * scale;
+		double vy = -nx * direction - ny * scale;
+		normalize(vx, vy, out);
+	}
+
+	@Override
+	public void getVectors(double[] xs, double[] ys, double[] outX, double[] outY, int from, int to) {
+		double[] s = scratch.get();
+		double[] out = new double[2];
+		for (int i = from; i < to; i++) {
+			double x = xs[i], y = ys[i];
+			surface.evaluate(x, y, s);
+			double scale = -kPrimitive.applyAsDouble(x, y) * psi(s[0]);
+			normalize(s[2] * direction - s[1] * scale, -s[1] * direction - s[2] * scale, out);
+			outX[i] = out[0];
+			outY[i] = out[1];
+		}
+	}
 }
@@ -10,4 +10,31 @@ public interface ISurface {
 	public abstract Function<Translation2d, Double> dfdx();
 
 	public abstract Function<Translation2d, Double> dfdy();
+
+	// Primitive versions of the above, which don't allocate or box. The defaults just call through to the
+	// Functions; surfaces used in control loops should override them, and implement the Functions with them instead.
+
+	public default double f(double x, double y) {
+		return f().apply(new Translation2d(x, y));
+	}
+
+	public default double dfdx(double x, double y) {
+		return dfdx().apply(new Translation2d(x, y));
+	}
+
+	public default double dfdy(double x, double y) {
+		return dfdy().apply(new Translation2d(x, y));
+	}
+
+	/**
+	 * Evaluates the surface and its gradient in one pass, so work shared between them (like finding
+	 * which piece of a piecewise surface the point is on) is only done once.
+	 *
+	 * @param out Receives f, dfdx and dfdy, in that order. Must have room for three values.
+	 */
+	public default void evaluate(double x, double y, double[] out) {
+		out[0] = f(x, y);
+		out[1] = dfdx(x, y);
+		out[2] = dfdy(x, y);
+	}
 }
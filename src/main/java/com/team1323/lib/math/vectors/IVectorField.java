@@ -1,7 +1,64 @@
 package com.team1323.lib.math.vectors;
 
+import java.util.stream.IntStream;
+
 import com.team254.lib.geometry.Translation2d;
 
 public interface IVectorField {
+	/** Points per task in {@link #getVectorsParallel}; smaller batches aren't worth splitting. */
+	public static final int kParallelChunkSize = 4096;
+
 	public abstract Translation2d getVector(Translation2d here);
+
+	/**
+	 * Primitive version of {@link #getVector(Translation2d)}. The default just calls through to it;
+	 * fields used in control loops should override this to avoid allocating.
+	 *
+	 * @param out Receives the x and y components of the vector. Must have room for two values.
+	 */
+	public default void getVector(double x, double y, double[] out) {
+		Translation2d v = getVector(new Translation2d(x, y));
+		out[0] = v.x();
+		out[1] = v.y();
+	}
+
+	/**
+	 * Evaluates the field at many points.
+	 *
+	 * @param xs   The x coordinates of the points.
+	 * @param ys   The y coordinates of the points.
+	 * @param outX Receives the x component of the vector at each point.
+	 * @param outY Receives the y component of the vector at each point.
+	 */
+	public default void getVectors(double[] xs, double[] ys, double[] outX, double[] outY) {
+		getVectors(xs, ys, outX, outY, 0, xs.length);
+	}
+
+	/**
+	 * Evaluates the field at the points from index from (inclusive) to to (exclusive), leaving the
+	 * rest of the output arrays alone.
+	 */
+	public default void getVectors(double[] xs, double[] ys, double[] outX, double[] outY, int from, int to) {
+		double[] out = new double[2];
+		for (int i = from; i < to; i++) {
+			getVector(xs[i], ys[i], out);
+			outX[i] = out[0];
+			outY[i] = out[1];
+		}
+	}
+
+	/**
+	 * Same as {@link #getVectors(double[], double[], double[], double[])}, but splits large arrays
+	 * into chunks evaluated on the common fork-join pool. The field must be safe to evaluate from
+	 * several threads at once.
+	 */
+	public default void getVectorsParallel(double[] xs, double[] ys, double[] outX, double[] outY) {
+		int chunks = (xs.length + kParallelChunkSize - 1) / kParallelChunkSize;
+		if (chunks <= 1) {
+			getVectors(xs, ys, outX, outY);
+			return;
+		}
+		IntStream.range(0, chunks).parallel().forEach(chunk -> getVectors(xs, ys, outX, outY,
+				chunk * kParallelChunkSize, Math.min(xs.length, (chunk + 1) * kParallelChunkSize)));
+	}
 }
@@ -5,7 +5,19 @@ import java.util.List;
 
 import com.team254.lib.geometry.Translation2d;
 
+/**
+ * The normalized sum of a list of fields.
+ * <p>
+ * Layers that declare a {@link VectorField#getSupport() support} box are put in a uniform grid, so
+ * a query only evaluates the layers whose support covers its grid cell, plus the unbounded layers.
+ * Layers are still summed in list order, so the result is the same as summing every layer. The
+ * grid is rebuilt automatically when the number of layers changes; call {@link #invalidateIndex()}
+ * after replacing a layer or changing one's support some other way.
+ */
 public class LayeredVectorField extends VectorField {
+	// Keeps the grid from getting silly when one support is tiny and another is huge
+	private static final int kMaxCellsPerSide = 64;
+
 	public LayeredVectorField(List<VectorField> fields_) {
 		for (VectorField f : fields_)
 			fields.add(f);
@@ -13,10 +25,130 @@ public class LayeredVectorField extends VectorField {
 
 	public List<VectorField> fields = new ArrayList<VectorField>(); // public, so may add() and such
 
+	private volatile SupportGrid index;
+
 	public Translation2d getVector(Translation2d here) {
+		int[] layers = getIndex().layersAt(here.x(), here.y());
 		Translation2d out = new Translation2d(0.0, 0.0);
-		for (VectorField f : fields)
-			out = out.translateBy(f.getVector(here));
+		for (int i : layers)
+			out = out.translateBy(fields.get(i).getVector(here));
 		return out.normalize();
 	}
+
+	@Override
+	public void getVector(double x, double y, double[] out) {
+		int[] layers = getIndex().layersAt(x, y);
+		double sx = 0.0, sy = 0.0;
+		for (int i = 0; i < layers.length; i++) {
+			fields.get(layers[i]).getVector(x, y, out);
+			sx += out[0];
+			sy += out[1];
+		}
+		normalize(sx, sy, out);
+	}
+
+	@Override
+	public BoundingBox getSupport() {
+		if (fields.isEmpty())
+			return null;
+		BoundingBox support = fields.get(0).getSupport();
+		for (int i = 1; i < fields.size() && support != null; i++)
+			support = union(support, fields.get(i).getSupport());
+		return support;
+	}
+
+	/**
+	 * Forces the spatial index to be rebuilt on the next query.
+	 */
+	public void invalidateIndex() {
+		index = null;
+	}
+
+	private SupportGrid getIndex() {
+		SupportGrid current = index;
+		if (current == null || current.layerCount != fields.size()) {
+			current = new SupportGrid(fields);
+			index = current;
+		}
+		return current;
+	}
+
+	private static class SupportGrid {
+		final int layerCount;
+		// Layer indices to evaluate outside the grid, i.e. the unbounded ones
+		final int[] unbounded;
+		final BoundingBox bounds;
+		final int columns, rows;
+		final double cellWidth, cellHeight;
+		// Layer indices to evaluate in each cell, ascending, row-major
+		final int[][] cells;
+
+		SupportGrid(List<VectorField> fields) {
+			layerCount = fields.size();
+			BoundingBox[] supports = new BoundingBox[layerCount];
+			List<Integer> unboundedList = new ArrayList<>();
+			BoundingBox all = null;
+			double sizeSum = 0.0;
+			int bounded = 0;
+			for (int i = 0; i < layerCount; i++) {
+				supports[i] = fields.get(i).getSupport();
+				if (supports[i] == null) {
+					unboundedList.add(i);
+				} else {
+					all = all == null ? supports[i] : all.union(supports[i]);
+					sizeSum += Math.max(supports[i].width(), supports[i].height());
+					bounded++;
+				}
+			}
+			unbounded = unboundedList.stream().mapToInt(Integer::intValue).toArray();
+			bounds = all;
+
+			if (all == null) {
+				columns = rows = 0;
+				cellWidth = cellHeight = 0.0;
+				cells = new int[0][];
+				return;
+			}
+			// Cells about the size of an average support, so each support covers only a few
+			double cellSize = Math.max(sizeSum / bounded, 1E-9);
+			columns = (int) Math.min(kMaxCellsPerSide, Math.max(1, Math.ceil(all.width() / cellSize)));
+			rows = (int) Math.min(kMaxCellsPerSide, Math.max(1, Math.ceil(all.height() / cellSize)));
+			cellWidth = all.width() / columns;
+			cellHeight = all.height() / rows;
+
+			List<List<Integer>> lists = new ArrayList<>(columns * rows);
+			for (int i = 0; i < columns * rows; i++)
+				lists.add(new ArrayList<>());
+			for (int i = 0; i < layerCount; i++) {
+				if (supports[i] == null) {
+					// Unbounded layers go in every cell so each cell's list is already in order
+					for (List<Integer> list : lists)
+						list.add(i);
+					continue;
+				}
+				int c0 = column(supports[i].minX()), c1 = column(supports[i].maxX());
+				int r0 = row(supports[i].minY()), r1 = row(supports[i].maxY());
+				for (int r = r0; r <= r1; r++)
+					for (int c = c0; c <= c1; c++)
+						lists.get(r * columns + c).add(i);
+			}
+			cells = new int[columns * rows][];
+			for (int i = 0; i < cells.length; i++)
+				cells[i] = lists.get(i).stream().mapToInt(Integer::intValue).toArray();
+		}
+
+		private int column(double x) {
+			return Math.max(0, Math.min(columns - 1, (int) ((x - bounds.minX()) / cellWidth)));
+		}
+
+		private int row(double y) {
+			return Math.max(0, Math.min(rows - 1, (int) ((y - bounds.minY()) / cellHeight)));
+		}
+
+		int[] layersAt(double x, double y) {
+			if (bounds == null || !bounds.contains(x, y))
+				return unbounded;
+			return cells[row(y) * columns + column(x)];
+		}
+	}
 }
@@ -1,5 +1,7 @@
 package com.team1323.lib.math.vectors;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import com.team254.lib.geometry.Translation2d;
@@ -9,6 +11,8 @@ import com.team254.lib.geometry.Translation2d;
  * Along the sides, the field is parallel to the side.
  * Around the vertices, the field is rotational.
  * Intended use is for obstacle avoidance.
+ * The polygon must be convex, in either winding order. Each query finds its side by a binary search on
+ * angle around the center and only checks the corners at the ends of that side, so it costs O(log n).
  * 
  * @author Joseph Reed
  */
@@ -28,51 +32,145 @@ public class PolyCirculationVectorField extends VectorField {
 		center = center.scale(1.0 / (double) vertices.size());
 		vertices.add(vertices_.get(0)); // add first last so we won't have to connect them manually
 		vertices.add(vertices_.get(1)); // add second last so we can uhhh like use three points in our corner checking code
+
+		int n = vertices_.size();
+		sideX = new double[n];
+		sideY = new double[n];
+		normalX = new double[n];
+		normalY = new double[n];
+		cornerMidX = new double[n];
+		cornerMidY = new double[n];
+		cornerCos = new double[n];
+		double area = 0.0;
+		for (int i = 0; i < n; i++) {
+			Translation2d v = vertices.get(i), next = vertices.get(i + 1);
+			Translation2d side = new Translation2d(v, next).normalize();
+			sideX[i] = side.x();
+			sideY[i] = side.y();
+			normalX[i] = -side.y();
+			normalY[i] = side.x();
+			area += Translation2d.cross(v, next);
+
+			// The angle vertical to the interior angle at v, as in here.isWithinAngle(prev, v, next, true), but
+			// centered on the true bisector so it is exact when the two sides have different lengths
+			Translation2d prev = vertices.get((i + n - 1) % n);
+			Translation2d a = new Translation2d(v, prev).normalize();
+			Translation2d m = a.translateBy(new Translation2d(v, next).normalize()).normalize();
+			cornerMidX[i] = -m.x();
+			cornerMidY[i] = -m.y();
+			cornerCos[i] = Translation2d.dot(a, m);
+		}
+		clockwise = area < 0.0;
+
+		// Vertices sorted by angle around the center. For a convex polygon that's just a rotation of the
+		// list, reversed if the polygon is clockwise.
+		sectorAngle = new double[n];
+		sectorSide = new int[n];
+		Integer[] order = new Integer[n];
+		double[] angle = new double[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+			angle[i] = new Translation2d(center, vertices.get(i)).direction().getRadians();
+		}
+		Arrays.sort(order, (i, j) -> Double.compare(angle[i], angle[j]));
+		for (int k = 0; k < n; k++) {
+			int i = order[k];
+			sectorAngle[k] = angle[i];
+			// The sector counterclockwise from vertex i belongs to the side leaving i, or the side entering i
+			// if the polygon is clockwise
+			sectorSide[k] = clockwise ? (i + n - 1) % n : i;
+		}
 	}
 
 	protected double radius;
 	protected Translation2d center;
-	protected List<Translation2d> vertices;
+	protected List<Translation2d> vertices = new ArrayList<>();
+
+	// Per side i, from vertex i to vertex i + 1: unit direction and unit normal
+	protected final double[] sideX, sideY, normalX, normalY;
+	// Per vertex: mid-vector and half-angle cosine of the corner region, the angle vertical to the interior angle
+	protected final double[] cornerMidX, cornerMidY, cornerCos;
+	protected final double[] sectorAngle;
+	protected final int[] sectorSide;
+	protected final boolean clockwise;
+
+	/**
+	 * With a finite radius the field is zero beyond radius of the polygon's sides and corners.
+	 */
+	@Override
+	public BoundingBox getSupport() {
+		if (radius == Double.POSITIVE_INFINITY)
+			return null;
+		BoundingBox support = null;
+		for (int i = 0; i < vertices.size() - 2; i++) {
+			Translation2d v = vertices.get(i);
+			BoundingBox side = BoundingBox.ofSideRegion(center, v, vertices.get(i + 1), radius)
+					.union(new BoundingBox(v.x() - radius, v.y() - radius, v.x() + radius, v.y() + radius));
+			support = support == null ? side : support.union(side);
+		}
+		return support;
+	}
 
 	public Translation2d getVector(Translation2d here) {
+		double[] out = new double[2];
+		getVector(here.x(), here.y(), out);
+		return new Translation2d(out[0], out[1]);
+	}
+
+	@Override
+	public void getVector(double x, double y, double[] out) {
 		// General approach:
-		// 1. Check whether here is in a corner region. If so, return <-y,x>.
-		// 2. Find the region containing here. Return a vector parallel to its defining side.
-
-		// Check whether here is in a corner region
-		// i = 1 to check (0,1,2); 
-		// i = sz - 2 to check (sz-3, sz-2, sz-1), i.e., (-1,0,1)
-		for (int i = 1; i < vertices.size() - 1; i++) {
-			// Translate our angle to have its center at the origin
-			Translation2d here_ = here.translateBy(vertices.get(i).inverse());
-			if (here.isWithinAngle(
-					vertices.get(i - 1),
-					vertices.get(i),
-					vertices.get(i + 1),
-					true // check within vertical angle
-			)) {
-				if (here_.norm() <= radius) {
-					return (new Translation2d(-here_.y(), here_.x())).normalize(); // use translated position because it will rotate about the vertex
-				} else {
-					return Translation2d.identity();
-				}
+		// 1. Find the side whose sector around the center contains here, by binary search on the angle.
+		// 2. Check whether here is in the corner region at either end of that side. If so, circulate about the
+		// corner.
+		// 3. Otherwise return a vector parallel to the side.
+		int n = sideX.length;
+		double theta = Math.atan2(y - center.y(), x - center.x());
+		int lo = 0, hi = n - 1;
+		if (theta < sectorAngle[0] || theta >= sectorAngle[n - 1]) {
+			// Sector that wraps around from the last angle to the first
+			lo = n - 1;
+		} else {
+			while (lo < hi) {
+				int mid = (lo + hi + 1) >>> 1;
+				if (sectorAngle[mid] <= theta)
+					lo = mid;
+				else
+					hi = mid - 1;
 			}
 		}
-		// If we get here, we ain't in a corner region
-		// Find the region containing here
-		for (int i = 0; i < vertices.size() - 1; i++) {
-			if (here.isWithinAngle(
-					vertices.get(i),
-					center,
-					vertices.get(i + 1))) {
-				if (here.distanceToLine(vertices.get(i), vertices.get(i + 1)) <= radius) {
-					return (new Translation2d(vertices.get(i), vertices.get(i + 1))).normalize();
-				} else {
-					return Translation2d.identity();
-				}
-			}
+		int side = sectorSide[lo];
+		int start = side, end = (side + 1) % n;
+
+		// Corners used to be checked in the order 1, 2, ..., n - 1, 0; keep that priority
+		int first = start == 0 ? end : (end == 0 ? start : Math.min(start, end));
+		int second = first == start ? end : start;
+		if (circulate(first, x, y, out) || circulate(second, x, y, out))
+			return;
+
+		double dx = x - vertices.get(start).x();
+		double dy = y - vertices.get(start).y();
+		if (Math.abs(dx * normalX[side] + dy * normalY[side]) <= radius) {
+			out[0] = sideX[side];
+			out[1] = sideY[side];
+		} else {
+			out[0] = out[1] = 0.0;
+		}
+	}
+
+	// If (x, y) is in the corner region of vertex i, writes the field there and returns true
+	private boolean circulate(int i, double x, double y, double[] out) {
+		double dx = x - vertices.get(i).x();
+		double dy = y - vertices.get(i).y();
+		double norm = Math.hypot(dx, dy);
+		if (dx * cornerMidX[i] + dy * cornerMidY[i] <= cornerCos[i] * norm)
+			return false;
+		if (norm <= radius) {
+			// Rotate about the vertex
+			normalize(-dy, dx, out);
+		} else {
+			out[0] = out[1] = 0.0;
 		}
-		// If we get here, something is horribly wrong
-		return Translation2d.identity();
+		return true;
 	}
 }
@@ -1,15 +1,12 @@
 package com.team1323.lib.math.vectors;
 
-import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Function;
 
 import com.team254.lib.geometry.Translation2d;
 
-import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
-
 // ok bois
 /* GuidingVectorField switchAvoidanceCW = new GuidingVectorField(new PolyCone(new ArrayList<Translation2d> {
 		Constants.kLeftSwitchCloseCorner,
@@ -29,47 +26,83 @@ public class PolyCone extends Surface {
 
 		public PlaneSegment(Translation2d p0, Translation2d p1, Translation2d p2, double radius) {
 
-			SmartDashboard.putNumber("Path X", p0.x());
-			SmartDashboard.putNumber("Path Y", p0.y());
-			Timer.delay(0.1);
-			SmartDashboard.putNumber("Path X", p1.x());
-			SmartDashboard.putNumber("Path Y", p1.y());
-			Timer.delay(0.1);
-			SmartDashboard.putNumber("Path X", p2.x());
-			SmartDashboard.putNumber("Path Y", p2.y());
-			Timer.delay(0.1);
-			SmartDashboard.putNumber("Path X", p0.x());
-			SmartDashboard.putNumber("Path Y", p0.y());
-			Timer.delay(0.1);
+			this.p0 = p0;
+			this.p1 = p1;
+			this.p2 = p2;
+			this.radius = radius;
 
 			Translation2d v1 = new Translation2d(p0, p1);
 			Translation2d v2 = new Translation2d(p0, p2);
-			double a = v1.y() - v2.y();
-			double b = v2.x() - v1.x();
-			double c = Translation2d.cross(v1, v2);
-
-			dfdx_ = (here -> a);
-			dfdy_ = (here -> b);
-
-			f_ = (here -> {
-				// the following return is the value of the plane z(x,y)
-				if (here.isWithinAngle(p1, p0, p2) && here.distanceToLine(p1, p2) <= radius)
-					return (a * (p0.x() - here.x()) + b * (p0.y() - here.y())) / c - 1.0;
-				else
-					return 0.0;
-			});
-			dfdx_ = (here -> {
-				if (here.isWithinAngle(p1, p0, p2) && here.distanceToLine(p1, p2) <= radius)
-					return a;
-				else
-					return 0.0;
-			});
-			dfdy_ = (here -> {
-				if (here.isWithinAngle(p1, p0, p2) && here.distanceToLine(p1, p2) <= radius)
-					return b;
-				else
-					return 0.0;
-			});
+			a = v1.y() - v2.y();
+			b = v2.x() - v1.x();
+			c = Translation2d.cross(v1, v2);
+
+			// Precomputed form of here.isWithinAngle(p1, p0, p2): the direction to here must be closer to the
+			// mid-vector of the angle than the sides are.
+			Translation2d m = new Translation2d(p0, p1.interpolate(p2, 0.5)).normalize();
+			midX = m.x();
+			midY = m.y();
+			cosHalfAngle = Translation2d.dot(v1.normalize(), m);
+
+			// Unit normal of the outer edge, for here.distanceToLine(p1, p2)
+			Translation2d edge = new Translation2d(p1, p2);
+			edgeNormalX = -edge.y() / edge.norm();
+			edgeNormalY = edge.x() / edge.norm();
+
+			f_ = (here -> f(here.x(), here.y()));
+			dfdx_ = (here -> dfdx(here.x(), here.y()));
+			dfdy_ = (here -> dfdy(here.x(), here.y()));
+		}
+
+		protected final Translation2d p0, p1, p2;
+		protected final double radius;
+		protected final double a, b, c;
+		protected final double midX, midY, cosHalfAngle;
+		protected final double edgeNormalX, edgeNormalY;
+
+		/**
+		 * @return Whether here lies over this plane, i.e. inside its angle at the center and within radius of its
+		 *         outer edge.
+		 */
+		public boolean contains(double x, double y) {
+			double dx = x - p0.x();
+			double dy = y - p0.y();
+			if (dx * midX + dy * midY <= cosHalfAngle * Math.hypot(dx, dy))
+				return false;
+			return radius == Double.POSITIVE_INFINITY
+					|| Math.abs((x - p1.x()) * edgeNormalX + (y - p1.y()) * edgeNormalY) <= radius;
+		}
+
+		@Override
+		public double f(double x, double y) {
+			// the following return is the value of the plane z(x,y)
+			return contains(x, y) ? (a * (p0.x() - x) + b * (p0.y() - y)) / c - 1.0 : 0.0;
+		}
+
+		@Override
+		public double dfdx(double x, double y) {
+			return contains(x, y) ? a : 0.0;
+		}
+
+		@Override
+		public double dfdy(double x, double y) {
+			return contains(x, y) ? b : 0.0;
+		}
+
+		@Override
+		public void evaluate(double x, double y, double[] out) {
+			if (contains(x, y)) {
+				out[0] = (a * (p0.x() - x) + b * (p0.y() - y)) / c - 1.0;
+				out[1] = a;
+				out[2] = b;
+			} else {
+				out[0] = out[1] = out[2] = 0.0;
+			}
+		}
+
+		@Override
+		public BoundingBox getSupport() {
+			return radius == Double.POSITIVE_INFINITY ? null : BoundingBox.ofSideRegion(p0, p1, p2, radius);
 		}
 
 		public Function<Translation2d, Double> f_;
@@ -103,7 +136,6 @@ public class PolyCone extends Surface {
 			center = center.translateBy(vertices.get(i));
 		}
 		center = center.scale(1.0 / (double) vertices.size());
-		System.out.println("Center: " + center);
 		// now generate list of sides
 		for (int i = 0; i < vertices.size() - 1; i++) {
 			sides.add(new PlaneSegment(center, vertices.get(i), vertices.get(i + 1), radius));
@@ -113,42 +145,80 @@ public class PolyCone extends Surface {
 
 	protected ArrayList<PlaneSegment> sides = new ArrayList<>();
 
+	@Override
+	public BoundingBox getSupport() {
+		BoundingBox support = sides.get(0).getSupport();
+		for (int i = 1; i < sides.size(); i++) {
+			support = VectorField.union(support, sides.get(i).getSupport());
+		}
+		return support;
+	}
+
+	/**
+	 * Sends the triangle under each side of the cone to a sink, e.g. a {@link DashboardGeometrySink}.
+	 * Nothing is drawn unless this is called.
+	 */
+	public void publish(GeometrySink sink) {
+		for (PlaneSegment side : sides) {
+			sink.polygon(Arrays.asList(side.p0, side.p1, side.p2));
+		}
+	}
+
 	public double f(Translation2d here) {
-		//		System.out.print("f"+here+" = 0.0");
+		return f(here.x(), here.y());
+	}
+
+	public double dfdx(Translation2d here) {
+		return dfdx(here.x(), here.y());
+	}
+
+	public double dfdy(Translation2d here) {
+		return dfdy(here.x(), here.y());
+	}
+
+	@Override
+	public double f(double x, double y) {
 		double z = 0.0;
 		for (int i = 0; i < sides.size(); i++) {
-			double k = sides.get(i).f().apply(here);
-			//			System.out.print(" + " + (new DecimalFormat("#0.000")).format(k));
-			z += k;
+			z += sides.get(i).f(x, y);
 		}
-		//		System.out.println("");
 		return z;
 	}
 
-	public double dfdx(Translation2d here) {
-		System.out.print("dfdx" + here + " = 0.0");
+	@Override
+	public double dfdx(double x, double y) {
 		double z = 0.0;
 		for (int i = 0; i < sides.size(); i++) {
-			double k = sides.get(i).dfdx().apply(here);
-			System.out.print(" + " + (new DecimalFormat("#0.000")).format(k));
-			z += k;
+			z += sides.get(i).dfdx(x, y);
 		}
-		System.out.println("");
 		return z;
 	}
 
-	public double dfdy(Translation2d here) {
-		System.out.print("dfdy" + here + " = 0.0");
+	@Override
+	public double dfdy(double x, double y) {
 		double z = 0.0;
 		for (int i = 0; i < sides.size(); i++) {
-			double k = sides.get(i).dfdy().apply(here);
-			System.out.print(" + " + (new DecimalFormat("#0.000")).format(k));
-			z += k;
+			z += sides.get(i).dfdy(x, y);
 		}
-		System.out.println("");
 		return z;
 	}
 
+	@Override
+	public void evaluate(double x, double y, double[] out) {
+		double f = 0.0, dfdx = 0.0, dfdy = 0.0;
+		for (int i = 0; i < sides.size(); i++) {
+			PlaneSegment side = sides.get(i);
+			if (side.contains(x, y)) {
+				f += (side.a * (side.p0.x() - x) + side.b * (side.p0.y() - y)) / side.c - 1.0;
+				dfdx += side.a;
+				dfdy += side.b;
+			}
+		}
+		out[0] = f;
+		out[1] = dfdx;
+		out[2] = dfdy;
+	}
+
 	public Function<Translation2d, Double> f_;
 	public Function<Translation2d, Double> dfdx_;
 	public Function<Translation2d, Double> dfdy_;
@@ -21,4 +21,13 @@ public class RadialVectorField extends VectorField {
 		Translation2d v = new Translation2d(here, there);
 		return v.scale(direction / v.norm());
 	}
+
+	@Override
+	public void getVector(double x, double y, double[] out) {
+		double dx = there.x() - x;
+		double dy = there.y() - y;
+		double scale = direction / Math.hypot(dx, dy);
+		out[0] = dx * scale;
+		out[1] = dy * scale;
+	}
 }
@@ -0,0 +1,248 @@
+package com.team1323.lib.math.vectors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.team254.lib.geometry.Pose2dWithCurvature;
+import com.team254.lib.geometry.Rotation2d;
+import com.team254.lib.geometry.Translation2d;
+import com.team254.lib.trajectory.Trajectory;
+
+/**
+ * Traces the streamline of a vector field, i.e. the path a robot following the field would drive,
+ * into a trajectory that can be time-parameterized and followed like any other.
+ * <p>
+ * The streamline is parameterized by arc length: it solves dp/ds = v(p) / |v(p)| with an adaptive
+ * Dormand-Prince RK45 step, so steps are long where the field is smooth and short where it bends.
+ * Headings are the field direction at each sample. Curvature and its derivative come from central
+ * differences of the heading along the path, unlike {@link VectorField#getCurvatureAhead}.
+ * <p>
+ * Integration stops at the goal, when the field vanishes or turns back on itself (e.g. at the edge
+ * of a region where the field flips), or at a length or step limit. An integrator keeps scratch
+ * state, so use one per thread.
+ */
+public class StreamlineIntegrator {
+	public enum Termination {
+		GOAL, STAGNATION, MAX_LENGTH, MAX_STEPS
+	}
+
+	// Dormand-Prince 5(4) tableau
+	private static final double a21 = 1.0 / 5.0;
+	private static final double a31 = 3.0 / 40.0, a32 = 9.0 / 40.0;
+	private static final double a41 = 44.0 / 45.0, a42 = -56.0 / 15.0, a43 = 32.0 / 9.0;
+	private static final double a51 = 19372.0 / 6561.0, a52 = -25360.0 / 2187.0, a53 = 64448.0 / 6561.0,
+			a54 = -212.0 / 729.0;
+	private static final double a61 = 9017.0 / 3168.0, a62 = -355.0 / 33.0, a63 = 46732.0 / 5247.0,
+			a64 = 49.0 / 176.0, a65 = -5103.0 / 18656.0;
+	private static final double b1 = 35.0 / 384.0, b3 = 500.0 / 1113.0, b4 = 125.0 / 192.0,
+			b5 = -2187.0 / 6784.0, b6 = 11.0 / 84.0;
+	// Fifth order weights minus fourth order weights
+	private static final double e1 = b1 - 5179.0 / 57600.0, e3 = b3 - 7571.0 / 16695.0,
+			e4 = b4 - 393.0 / 640.0, e5 = b5 - -92097.0 / 339200.0, e6 = b6 - 187.0 / 2100.0,
+			e7 = -1.0 / 40.0;
+
+	private static final double kStagnationEpsilon = 1E-9;
+	private static final int kDefaultMaxSteps = 100000;
+
+	protected final VectorField field;
+	protected final double tolerance;
+	protected final double minStep;
+	protected final double maxStep;
+	protected int maxSteps = kDefaultMaxSteps;
+
+	private final double[] scratch = new double[2];
+
+	/**
+	 * @param field     The field to trace.
+	 * @param tolerance Largest position error allowed per step.
+	 * @param minStep   Shortest step to take; steps this short are accepted even if they miss the
+	 *                  tolerance.
+	 * @param maxStep   Longest step to take, which is also the largest spacing between samples of
+	 *                  the trajectory.
+	 */
+	public StreamlineIntegrator(VectorField field, double tolerance, double minStep, double maxStep) {
+		this.field = field;
+		this.tolerance = tolerance;
+		this.minStep = minStep;
+		this.maxStep = maxStep;
+	}
+
+	public void setMaxSteps(int maxSteps) {
+		this.maxSteps = maxSteps;
+	}
+
+	/**
+	 * Traces the streamline through start.
+	 *
+	 * @param goal          Where to stop, or null to follow the field until another limit is hit.
+	 * @param goalTolerance How close to the goal counts as reaching it.
+	 * @param maxLength     Longest path to trace. Tracing stops at the first sample at or beyond this
+	 *                      length rather than shortening the last step, which would spoil the
+	 *                      curvature estimate there.
+	 */
+	public Streamline integrate(Translation2d start, Translation2d goal, double goalTolerance, double maxLength) {
+		double[] xs = new double[64], ys = new double[64], cos = new double[64], sin = new double[64];
+		double[] s = new double[64];
+		int n = 0;
+
+		double x = start.x(), y = start.y();
+		double[] k1 = new double[2], k2 = new double[2], k3 = new double[2], k4 = new double[2],
+				k5 = new double[2], k6 = new double[2], k7 = new double[2];
+		Termination termination = null;
+		if (!direction(x, y, k1)) {
+			termination = Termination.STAGNATION;
+		}
+		xs[0] = x;
+		ys[0] = y;
+		cos[0] = k1[0];
+		sin[0] = k1[1];
+		n = 1;
+
+		double length = 0.0;
+		double h = maxStep;
+		int steps = 0;
+		while (termination == null) {
+			int previous = Math.max(0, n - 2);
+			if (goal != null && distanceToSegment(goal, xs[previous], ys[previous], x, y) <= goalTolerance) {
+				// Passed within tolerance of the goal on the last step, even if neither end of it is that close
+				termination = Termination.GOAL;
+				break;
+			}
+			if (length >= maxLength) {
+				termination = Termination.MAX_LENGTH;
+				break;
+			}
+			if (steps++ >= maxSteps) {
+				termination = Termination.MAX_STEPS;
+				break;
+			}
+			boolean ok = direction(x + h * a21 * k1[0], y + h * a21 * k1[1], k2)
+					&& direction(x + h * (a31 * k1[0] + a32 * k2[0]), y + h * (a31 * k1[1] + a32 * k2[1]), k3)
+					&& direction(x + h * (a41 * k1[0] + a42 * k2[0] + a43 * k3[0]),
+							y + h * (a41 * k1[1] + a42 * k2[1] + a43 * k3[1]), k4)
+					&& direction(x + h * (a51 * k1[0] + a52 * k2[0] + a53 * k3[0] + a54 * k4[0]),
+							y + h * (a51 * k1[1] + a52 * k2[1] + a53 * k3[1] + a54 * k4[1]), k5)
+					&& direction(x + h * (a61 * k1[0] + a62 * k2[0] + a63 * k3[0] + a64 * k4[0] + a65 * k5[0]),
+							y + h * (a61 * k1[1] + a62 * k2[1] + a63 * k3[1] + a64 * k4[1] + a65 * k5[1]), k6);
+			double nx = x + h * (b1 * k1[0] + b3 * k3[0] + b4 * k4[0] + b5 * k5[0] + b6 * k6[0]);
+			double ny = y + h * (b1 * k1[1] + b3 * k3[1] + b4 * k4[1] + b5 * k5[1] + b6 * k6[1]);
+			ok = ok && direction(nx, ny, k7);
+
+			double error = Double.POSITIVE_INFINITY;
+			if (ok) {
+				double ex = h * (e1 * k1[0] + e3 * k3[0] + e4 * k4[0] + e5 * k5[0] + e6 * k6[0] + e7 * k7[0]);
+				double ey = h * (e1 * k1[1] + e3 * k3[1] + e4 * k4[1] + e5 * k5[1] + e6 * k6[1] + e7 * k7[1]);
+				error = Math.hypot(ex, ey);
+			}
+
+			if (error > tolerance && h > minStep) {
+				// Reject and retry with a shorter step
+				h = Math.max(minStep, h * (ok ? Math.max(0.2, 0.9 * Math.pow(tolerance / error, 0.2)) : 0.2));
+				continue;
+			}
+			if (!ok || k1[0] * k7[0] + k1[1] * k7[1] < 0.0) {
+				// The field vanished or reversed within a minimum-length step, so there is nowhere to go
+				termination = Termination.STAGNATION;
+				break;
+			}
+
+			length += Math.hypot(nx - x, ny - y);
+			x = nx;
+			y = ny;
+			double[] swap = k1;
+			k1 = k7;
+			k7 = swap;
+
+			if (n == xs.length) {
+				xs = Arrays.copyOf(xs, 2 * n);
+				ys = Arrays.copyOf(ys, 2 * n);
+				cos = Arrays.copyOf(cos, 2 * n);
+				sin = Arrays.copyOf(sin, 2 * n);
+				s = Arrays.copyOf(s, 2 * n);
+			}
+			xs[n] = x;
+			ys[n] = y;
+			cos[n] = k1[0];
+			sin[n] = k1[1];
+			s[n] = length;
+			n++;
+
+			double grow = error == 0.0 ? 5.0 : Math.min(5.0, 0.9 * Math.pow(tolerance / error, 0.2));
+			h = Math.max(minStep, Math.min(maxStep, h * grow));
+		}
+
+		return new Streamline(buildTrajectory(xs, ys, cos, sin, s, n), termination, length);
+	}
+
+	private static double distanceToSegment(Translation2d p, double ax, double ay, double bx, double by) {
+		double dx = bx - ax, dy = by - ay;
+		double length2 = dx * dx + dy * dy;
+		double t = length2 > 0.0 ? Math.max(0.0, Math.min(1.0, ((p.x() - ax) * dx + (p.y() - ay) * dy) / length2)) : 0.0;
+		return Math.hypot(p.x() - (ax + t * dx), p.y() - (ay + t * dy));
+	}
+
+	// Unit direction of the field at (x, y); false if the field vanishes or is undefined there
+	private boolean direction(double x, double y, double[] out) {
+		field.getVector(x, y, scratch);
+		double norm = Math.hypot(scratch[0], scratch[1]);
+		if (!(norm > kStagnationEpsilon)) {
+			return false;
+		}
+		out[0] = scratch[0] / norm;
+		out[1] = scratch[1] / norm;
+		return true;
+	}
+
+	private static Trajectory<Pose2dWithCurvature> buildTrajectory(double[] xs, double[] ys, double[] cos,
+			double[] sin, double[] s, int n) {
+		double[] curvature = new double[n];
+		double[] dcurvature = new double[n];
+		for (int i = 0; i < n; i++) {
+			int lo = Math.max(0, i - 1), hi = Math.min(n - 1, i + 1);
+			double ds = s[hi] - s[lo];
+			// Signed angle from the heading at lo to the heading at hi
+			double dtheta = Math.atan2(cos[lo] * sin[hi] - sin[lo] * cos[hi], cos[lo] * cos[hi] + sin[lo] * sin[hi]);
+			curvature[i] = ds > 0.0 ? dtheta / ds : 0.0;
+		}
+		for (int i = 0; i < n; i++) {
+			int lo = Math.max(0, i - 1), hi = Math.min(n - 1, i + 1);
+			double ds = s[hi] - s[lo];
+			dcurvature[i] = ds > 0.0 ? (curvature[hi] - curvature[lo]) / ds : 0.0;
+		}
+
+		List<Pose2dWithCurvature> states = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			states.add(new Pose2dWithCurvature(new Translation2d(xs[i], ys[i]), new Rotation2d(cos[i], sin[i], false),
+					curvature[i], dcurvature[i]));
+		}
+		return new Trajectory<>(states);
+	}
+
+	/**
+	 * A traced streamline and why tracing stopped.
+	 */
+	public static class Streamline {
+		protected final Trajectory<Pose2dWithCurvature> trajectory;
+		protected final Termination termination;
+		protected final double length;
+
+		public Streamline(Trajectory<Pose2dWithCurvature> trajectory, Termination termination, double length) {
+			this.trajectory = trajectory;
+			this.termination = termination;
+			this.length = length;
+		}
+
+		public Trajectory<Pose2dWithCurvature> getTrajectory() {
+			return trajectory;
+		}
+
+		public Termination getTermination() {
+			return termination;
+		}
+
+		public double getLength() {
+			return length;
+		}
+	}
+}
@@ -12,4 +12,12 @@ public abstract class Surface implements ISurface {
 
 	public abstract Function<Translation2d, Double> dfdy();
 
+	/**
+	 * @return A box outside which this surface and its gradient are exactly zero, or null if they
+	 *         may be nonzero anywhere.
+	 */
+	public BoundingBox getSupport() {
+		return null;
+	}
+
 }
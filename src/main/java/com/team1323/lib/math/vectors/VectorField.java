@@ -1,40 +1,34 @@
 package com.team1323.lib.math.vectors;
 
 import com.team254.lib.geometry.Translation2d;
+import com.team254.lib.util.Util;
 
 public abstract class VectorField implements IVectorField {
 	public abstract Translation2d getVector(Translation2d here);
 
 	public VectorField add(VectorField other) {
-		VectorField temp = this;
-		return new VectorField() {
-			@Override
-			public Translation2d getVector(Translation2d here) {
-				//	System.out.println("First: "+temp.getVector(here).x()+" "+temp.getVector(here).y());
-				//	System.out.println("Secnd: "+other.getVector(here).x()+" "+other.getVector(here).y());
-				return temp.getVector(here).translateBy(other.getVector(here)).normalize();
-			}
-		};
+		return new Sum(this, other);
 	}
 
 	public VectorField inverse() {
-		VectorField temp = this;
-		return new VectorField() {
-			@Override
-			public Translation2d getVector(Translation2d here) {
-				return temp.getVector(here).inverse();
-			}
-		};
+		return new Inverse(this);
 	}
 
 	public VectorField scale(double s) {
-		VectorField temp = this;
-		return new VectorField() {
-			@Override
-			public Translation2d getVector(Translation2d here) {
-				return temp.getVector(here).scale(s);
-			}
-		};
+		return new Scaled(this, s);
+	}
+
+	/**
+	 * @return A box outside which this field is exactly zero, or null if it may be nonzero anywhere.
+	 *         Fields that are only nonzero near an obstacle should override this, so that
+	 *         {@link LayeredVectorField} can skip them elsewhere.
+	 */
+	public BoundingBox getSupport() {
+		return null;
+	}
+
+	static BoundingBox union(BoundingBox a, BoundingBox b) {
+		return a == null || b == null ? null : a.union(b);
 	}
 
 	// the following is not real curvature, just a cheap attempt at guessing it
@@ -44,4 +38,106 @@ public abstract class VectorField implements IVectorField {
 		Translation2d out_there = getVector(there);
 		return Translation2d.getAngle(out_here, out_there).getRadians();
 	}
+
+	// Normalizes (x, y) into out the same way Translation2d.normalize() does, leaving near-zero vectors alone
+	static void normalize(double x, double y, double[] out) {
+		if (Math.abs(x) < Util.kEpsilon && Math.abs(y) < Util.kEpsilon) {
+			out[0] = x;
+			out[1] = y;
+			return;
+		}
+		double norm = Math.hypot(x, y);
+		out[0] = x / norm;
+		out[1] = y / norm;
+	}
+
+	// The compositions below are named, rather than anonymous, so VectorFieldBuilder can see inside them.
+
+	/**
+	 * The normalized sum of two fields; see {@link VectorField#add(VectorField)}.
+	 */
+	public static class Sum extends VectorField {
+		protected final VectorField first, second;
+
+		public Sum(VectorField first, VectorField second) {
+			this.first = first;
+			this.second = second;
+		}
+
+		@Override
+		public Translation2d getVector(Translation2d here) {
+			return first.getVector(here).translateBy(second.getVector(here)).normalize();
+		}
+
+		@Override
+		public void getVector(double x, double y, double[] out) {
+			first.getVector(x, y, out);
+			double sx = out[0], sy = out[1];
+			second.getVector(x, y, out);
+			normalize(sx + out[0], sy + out[1], out);
+		}
+
+		@Override
+		public BoundingBox getSupport() {
+			return union(first.getSupport(), second.getSupport());
+		}
+	}
+
+	/**
+	 * A field pointing the opposite way; see {@link VectorField#inverse()}.
+	 */
+	public static class Inverse extends VectorField {
+		protected final VectorField field;
+
+		public Inverse(VectorField field) {
+			this.field = field;
+		}
+
+		@Override
+		public Translation2d getVector(Translation2d here) {
+			return field.getVector(here).inverse();
+		}
+
+		@Override
+		public void getVector(double x, double y, double[] out) {
+			field.getVector(x, y, out);
+			out[0] = -out[0];
+			out[1] = -out[1];
+		}
+
+		@Override
+		public BoundingBox getSupport() {
+			return field.getSupport();
+		}
+	}
+
+	/**
+	 * A field multiplied by a constant; see {@link VectorField#scale(double)}.
+	 */
+	public static class Scaled extends VectorField {
+		protected final VectorField field;
+		protected final double scale;
+
+		public Scaled(VectorField field, double scale) {
+			this.field = field;
+			this.scale = scale;
+		}
+
+		@Override
+		public Translation2d getVector(Translation2d here) {
+			return field.getVector(here).scale(scale);
+		}
+
+		@Override
+		public void getVector(double x, double y, double[] out) {
+			field.getVector(x, y, out);
+			out[0] *= scale;
+			out[1] *= scale;
+		}
+
+		@Override
+		public BoundingBox getSupport() {
+			return field.getSupport();
+		}
+	}
 }
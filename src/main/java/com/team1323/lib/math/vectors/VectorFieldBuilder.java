@@ -0,0 +1,94 @@
+package com.team1323.lib.math.vectors;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a composition of vector fields into a {@link CompiledVectorField}.
+ * <p>
+ * Compositions made with {@link VectorField#add}, {@link VectorField#inverse},
+ * {@link VectorField#scale} and {@link LayeredVectorField} are flattened into a list of nodes in
+ * evaluation order. A field that appears more than once in the composition (the same object, not
+ * an equal one) becomes a single node, so it is evaluated once per query no matter how many times
+ * it is used. Any other field is a leaf and is evaluated through its primitive
+ * {@link IVectorField#getVector(double, double, double[])}.
+ * <p>
+ * Every node keeps its field's {@link VectorField#getSupport() support}, and is skipped as zero
+ * for points outside it, so the layers of a {@link LayeredVectorField} are culled as they are in
+ * the uncompiled field.
+ * <p>
+ * The compiled field is a snapshot: adding to a {@link LayeredVectorField}'s list afterwards does
+ * not change it.
+ */
+public class VectorFieldBuilder {
+	enum Op {
+		LEAF, SUM, INVERSE, SCALE
+	}
+
+	private final Map<VectorField, Integer> ids = new IdentityHashMap<>();
+	private final List<Op> ops = new ArrayList<>();
+	private final List<VectorField> leaves = new ArrayList<>();
+	private final List<int[]> children = new ArrayList<>();
+	private final List<Double> scales = new ArrayList<>();
+	private final List<BoundingBox> supports = new ArrayList<>();
+
+	private VectorFieldBuilder() {
+	}
+
+	public static CompiledVectorField compile(VectorField root) {
+		VectorFieldBuilder builder = new VectorFieldBuilder();
+		builder.visit(root);
+		return builder.build(root.getSupport());
+	}
+
+	// Post-order, so every node comes after its children
+	private int visit(VectorField field) {
+		Integer id = ids.get(field);
+		if (id != null)
+			return id;
+		if (field instanceof CompiledVectorField) {
+			// Already flat; treat it as a leaf rather than unpacking it again
+			return addNode(field, Op.LEAF, null, 0.0);
+		} else if (field instanceof VectorField.Sum) {
+			VectorField.Sum sum = (VectorField.Sum) field;
+			return addNode(field, Op.SUM, new int[] { visit(sum.first), visit(sum.second) }, 0.0);
+		} else if (field instanceof LayeredVectorField) {
+			List<VectorField> layers = ((LayeredVectorField) field).fields;
+			int[] layerIds = new int[layers.size()];
+			for (int i = 0; i < layerIds.length; i++)
+				layerIds[i] = visit(layers.get(i));
+			return addNode(field, Op.SUM, layerIds, 0.0);
+		} else if (field instanceof VectorField.Inverse) {
+			return addNode(field, Op.INVERSE, new int[] { visit(((VectorField.Inverse) field).field) }, 0.0);
+		} else if (field instanceof VectorField.Scaled) {
+			VectorField.Scaled scaled = (VectorField.Scaled) field;
+			return addNode(field, Op.SCALE, new int[] { visit(scaled.field) }, scaled.scale);
+		}
+		return addNode(field, Op.LEAF, null, 0.0);
+	}
+
+	private int addNode(VectorField field, Op op, int[] nodeChildren, double scale) {
+		int id = ops.size();
+		ops.add(op);
+		children.add(nodeChildren == null ? new int[0] : nodeChildren);
+		scales.add(scale);
+		supports.add(field.getSupport());
+		leaves.add(op == Op.LEAF ? field : null);
+		ids.put(field, id);
+		return id;
+	}
+
+	private CompiledVectorField build(BoundingBox support) {
+		int n = ops.size();
+		Op[] opArray = ops.toArray(new Op[n]);
+		VectorField[] leafArray = leaves.toArray(new VectorField[n]);
+		int[][] childArray = children.toArray(new int[n][]);
+		double[] scaleArray = new double[n];
+		for (int i = 0; i < n; i++)
+			scaleArray[i] = scales.get(i);
+		BoundingBox[] supportArray = supports.toArray(new BoundingBox[n]);
+		return new CompiledVectorField(opArray, leafArray, childArray, scaleArray, supportArray, support);
+	}
+}
@@ -0,0 +1,130 @@
+package com.team1323.lib.util;
+
+import com.team254.lib.geometry.Pose2d;
+import com.team254.lib.geometry.Rotation2d;
+import com.team254.lib.geometry.Translation2d;
+
+/**
+ * Field-relative pose from wheel odometry, corrected by delayed absolute measurements such as vision.
+ * <p>
+ * Odometry updates are integrated along constant-curvature arcs (Pose2d.exp) and recorded in a
+ * {@link PoseHistory}. A vision measurement is fused at the time its image was captured: the pose
+ * at that time is blended toward the measurement, and the odometry recorded since is replayed on
+ * top of the correction, so the latency doesn't drag the estimate backwards. Updates don't allocate
+ * and are synchronized, so odometry and vision may arrive on different threads.
+ */
+public class PoseEstimator {
+	private final PoseHistory history;
+	private final double[] pose = new double[3];
+	private final double[] measured = new double[3];
+	private final double[] chassis = new double[3];
+	private final double[] scratch = new double[3];
+
+	/**
+	 * @param historyCapacity how many odometry updates to keep; measurements older than the oldest
+	 *                        are dropped, so this times the odometry period should exceed the worst
+	 *                        measurement latency
+	 */
+	public PoseEstimator(int historyCapacity) {
+		history = new PoseHistory(historyCapacity);
+	}
+
+	/**
+	 * Forgets the history and starts over from a known pose.
+	 */
+	public synchronized void reset(double timestamp, Pose2d initialPose) {
+		history.clear();
+		pose[0] = initialPose.getTranslation().x();
+		pose[1] = initialPose.getTranslation().y();
+		pose[2] = initialPose.getRotation().getRadians();
+		history.add(timestamp, pose[0], pose[1], pose[2], 0.0, 0.0, 0.0);
+	}
+
+	/**
+	 * Integrates a body-frame displacement since the previous update. Updates that aren't later than
+	 * the previous one are ignored.
+	 */
+	public synchronized void addOdometry(double timestamp, double dx, double dy, double dtheta) {
+		if (!history.isEmpty() && !(timestamp > history.getLatestTimestamp()))
+			return;
+		PoseHistory.integrate(pose[0], pose[1], pose[2], dx, dy, dtheta, scratch);
+		history.add(timestamp, scratch[0], scratch[1], scratch[2], dx, dy, dtheta);
+		history.getLatest(pose);
+	}
+
+	/**
+	 * Same as {@link #addOdometry(double, double, double, double)}, taking the rotation from an
+	 * absolute heading, such as a gyro's, instead.
+	 */
+	public synchronized void addOdometryWithHeading(double timestamp, double dx, double dy, Rotation2d heading) {
+		addOdometry(timestamp, dx, dy, PoseHistory.boundRadians(heading.getRadians() - pose[2]));
+	}
+
+	/**
+	 * @param distanceDeltas how far each module rolled since the previous update
+	 * @param angles         each module's angle, in radians
+	 */
+	public synchronized void addSwerveOdometry(double timestamp, SwerveDriveKinematics kinematics,
+			double[] distanceDeltas, double[] angles) {
+		// The kinematics are linear, so a fit of displacements is the displacement of the chassis
+		kinematics.toChassisVelocityFromStates(distanceDeltas, angles, chassis);
+		// The fit is about the kinematics' center of rotation, but the pose is of the robot center
+		kinematics.toRobotCenter(chassis);
+		addOdometry(timestamp, chassis[0], chassis[1], chassis[2]);
+	}
+
+	public synchronized void addDifferentialOdometry(double timestamp, double leftDelta, double rightDelta,
+			double trackWidth) {
+		addOdometry(timestamp, (leftDelta + rightDelta) / 2.0, 0.0, (rightDelta - leftDelta) / trackWidth);
+	}
+
+	/**
+	 * Fuses an absolute pose measurement taken at an earlier time.
+	 *
+	 * @param timestamp       when the measurement was captured, not when it arrived
+	 * @param translationGain how far to move toward the measured position, from 0 to 1
+	 * @param rotationGain    how far to move toward the measured heading, from 0 to 1
+	 * @return false if the measurement is older than the history and was dropped
+	 */
+	public synchronized boolean addVisionMeasurement(double timestamp, double x, double y, double theta,
+			double translationGain, double rotationGain) {
+		if (!history.sample(timestamp, measured))
+			return false;
+		double correctedX = measured[0] + translationGain * (x - measured[0]);
+		double correctedY = measured[1] + translationGain * (y - measured[1]);
+		double correctedTheta = measured[2] + rotationGain * PoseHistory.boundRadians(theta - measured[2]);
+		history.replay(timestamp, correctedX, correctedY, correctedTheta, scratch);
+		history.getLatest(pose);
+		return true;
+	}
+
+	public boolean addVisionMeasurement(double timestamp, Pose2d measurement, double gain) {
+		return addVisionMeasurement(timestamp, measurement.getTranslation().x(), measurement.getTranslation().y(),
+				measurement.getRotation().getRadians(), gain, gain);
+	}
+
+	/**
+	 * @param out filled with x, y, theta in radians
+	 */
+	public synchronized void getLatestPose(double[] out) {
+		out[0] = pose[0];
+		out[1] = pose[1];
+		out[2] = pose[2];
+	}
+
+	public synchronized Pose2d getLatestPose() {
+		return new Pose2d(new Translation2d(pose[0], pose[1]), Rotation2d.fromRadians(pose[2]));
+	}
+
+	/**
+	 * @param out filled with x, y, theta in radians
+	 * @return false if the timestamp is older than the history
+	 */
+	public synchronized boolean getPoseAt(double timestamp, double[] out) {
+		return history.sample(timestamp, out);
+	}
+
+	public synchronized Pose2d getPoseAt(double timestamp) {
+		return history.getPose(timestamp);
+	}
+}
@@ -0,0 +1,228 @@
+package com.team1323.lib.util;
+
+import com.team254.lib.geometry.Pose2d;
+import com.team254.lib.geometry.Rotation2d;
+import com.team254.lib.geometry.Translation2d;
+
+/**
+ * A fixed-capacity ring buffer of timestamped poses, stored in primitive arrays.
+ * <p>
+ * Each sample also keeps the body-frame displacement (a twist) that carried the previous sample to
+ * it, so the history can be interpolated along the arc the robot actually drove and replayed from
+ * a corrected pose, as {@link PoseEstimator} does for delayed vision measurements. Once full, each
+ * new sample overwrites the oldest one. Lookups are binary searches, and nothing here allocates
+ * except the Pose2d convenience methods.
+ */
+public class PoseHistory {
+	private static final double kEps = 1E-9;
+
+	private final int capacity;
+	private final double[] t;
+	private final double[] x;
+	private final double[] y;
+	private final double[] theta; // Radians, -pi to pi
+	private final double[] dx;
+	private final double[] dy;
+	private final double[] dtheta;
+	private int start = 0;
+	private int size = 0;
+
+	public PoseHistory(int capacity) {
+		if (capacity < 2)
+			throw new IllegalArgumentException("Pose history needs room for at least two samples");
+		this.capacity = capacity;
+		t = new double[capacity];
+		x = new double[capacity];
+		y = new double[capacity];
+		theta = new double[capacity];
+		dx = new double[capacity];
+		dy = new double[capacity];
+		dtheta = new double[capacity];
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		start = 0;
+		size = 0;
+	}
+
+	// Index into the arrays of the i-th oldest sample
+	private int slot(int i) {
+		int s = start + i;
+		return s < capacity ? s : s - capacity;
+	}
+
+	/**
+	 * Appends a sample.
+	 *
+	 * @param timestamp must be later than every sample already in the history
+	 * @param dx        body-frame displacement from the previous sample to this one; likewise dy and dtheta
+	 * @return false, and nothing is added, if the timestamp is out of order
+	 */
+	public boolean add(double timestamp, double x, double y, double theta, double dx, double dy, double dtheta) {
+		if (size > 0 && !(timestamp > t[slot(size - 1)]))
+			return false;
+		int s;
+		if (size < capacity) {
+			s = slot(size);
+			size++;
+		} else {
+			s = start;
+			start = slot(1);
+		}
+		this.t[s] = timestamp;
+		set(s, x, y, theta);
+		this.dx[s] = dx;
+		this.dy[s] = dy;
+		this.dtheta[s] = dtheta;
+		return true;
+	}
+
+	private void set(int s, double x, double y, double theta) {
+		this.x[s] = x;
+		this.y[s] = y;
+		this.theta[s] = boundRadians(theta);
+	}
+
+	public double getTimestamp(int i) {
+		return t[slot(i)];
+	}
+
+	public double getOldestTimestamp() {
+		return t[slot(0)];
+	}
+
+	public double getLatestTimestamp() {
+		return t[slot(size - 1)];
+	}
+
+	/**
+	 * Copies the i-th oldest sample's pose into out as x, y, theta.
+	 */
+	public void get(int i, double[] out) {
+		int s = slot(i);
+		out[0] = x[s];
+		out[1] = y[s];
+		out[2] = theta[s];
+	}
+
+	public void getLatest(double[] out) {
+		get(size - 1, out);
+	}
+
+	/**
+	 * @return the index of the newest sample at or before the timestamp, or -1 if the timestamp is
+	 *         before every sample
+	 */
+	public int floorIndex(double timestamp) {
+		int lo = 0, hi = size - 1, result = -1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (t[slot(mid)] <= timestamp) {
+				result = mid;
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Interpolates the pose at a timestamp along the stored displacements. Timestamps after the
+	 * newest sample get the newest pose.
+	 *
+	 * @param out filled with x, y, theta
+	 * @return false, and out is untouched, if the timestamp is before the oldest sample
+	 */
+	public boolean sample(double timestamp, double[] out) {
+		int i = floorIndex(timestamp);
+		if (i < 0)
+			return false;
+		int s = slot(i);
+		if (i == size - 1 || t[s] == timestamp) {
+			get(i, out);
+			return true;
+		}
+		int next = slot(i + 1);
+		double fraction = (timestamp - t[s]) / (t[next] - t[s]);
+		integrate(x[s], y[s], theta[s], fraction * dx[next], fraction * dy[next], fraction * dtheta[next], out);
+		out[2] = boundRadians(out[2]);
+		return true;
+	}
+
+	public Pose2d getPose(double timestamp) {
+		double[] out = new double[3];
+		if (!sample(timestamp, out))
+			return null;
+		return new Pose2d(new Translation2d(out[0], out[1]), Rotation2d.fromRadians(out[2]));
+	}
+
+	/**
+	 * Replaces the pose at a timestamp and re-integrates every later sample from it with its stored
+	 * displacement.
+	 *
+	 * @return false, and nothing changes, if the timestamp is before the oldest sample
+	 */
+	public boolean replay(double timestamp, double x, double y, double theta, double[] scratch) {
+		int i = floorIndex(timestamp);
+		if (i < 0)
+			return false;
+		if (i == size - 1 || t[slot(i)] == timestamp) {
+			set(slot(i), x, y, theta);
+		} else {
+			// The correction lands partway through the next displacement; replay only the rest of it
+			int s = slot(i), next = slot(i + 1);
+			double remaining = (t[next] - timestamp) / (t[next] - t[s]);
+			integrate(x, y, theta, remaining * dx[next], remaining * dy[next], remaining * dtheta[next], scratch);
+			i++;
+			set(next, scratch[0], scratch[1], scratch[2]);
+		}
+		for (int j = i + 1; j < size; j++) {
+			int previous = slot(j - 1), s = slot(j);
+			integrate(this.x[previous], this.y[previous], this.theta[previous], dx[s], dy[s], dtheta[s], scratch);
+			set(s, scratch[0], scratch[1], scratch[2]);
+		}
+		return true;
+	}
+
+	/**
+	 * Moves a pose by a body-frame twist, the same as pose.transformBy(Pose2d.exp(twist)).
+	 *
+	 * @param out filled with x, y, theta; may not be bounded to -pi to pi
+	 */
+	public static void integrate(double x, double y, double theta, double dx, double dy, double dtheta,
+			double[] out) {
+		double s, c;
+		if (Math.abs(dtheta) < kEps) {
+			s = 1.0 - 1.0 / 6.0 * dtheta * dtheta;
+			c = .5 * dtheta;
+		} else {
+			s = Math.sin(dtheta) / dtheta;
+			c = (1.0 - Math.cos(dtheta)) / dtheta;
+		}
+		double tx = dx * s - dy * c;
+		double ty = dx * c + dy * s;
+		double cos = Math.cos(theta), sin = Math.sin(theta);
+		out[0] = x + cos * tx - sin * ty;
+		out[1] = y + sin * tx + cos * ty;
+		out[2] = theta + dtheta;
+	}
+
+	public static double boundRadians(double radians) {
+		if (radians >= -Math.PI && radians < Math.PI)
+			return radians;
+		return radians - 2.0 * Math.PI * Math.floor((radians + Math.PI) / (2.0 * Math.PI));
+	}
+}
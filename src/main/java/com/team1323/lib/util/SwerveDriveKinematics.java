@@ -0,0 +1,215 @@
+package com.team1323.lib.util;
+
+import java.util.List;
+
+import com.team254.lib.geometry.Translation2d;
+
+/**
+ * Kinematics for a swerve drive with any number of modules in any layout.
+ * <p>
+ * Each module's velocity is linear in the chassis velocity (vx, vy, omega), so inverse kinematics is
+ * a 2N x 3 matrix and forward kinematics is its least-squares pseudo-inverse, 3 x 2N. Both are
+ * computed for the current center of rotation and kept until it changes, so the per-loop calls are
+ * just matrix products into caller-provided arrays and never allocate.
+ * <p>
+ * Module positions are relative to the robot center, x forward and y left; angles are in radians,
+ * counterclockwise positive.
+ */
+public class SwerveDriveKinematics {
+	private final int numModules;
+	private final double[] moduleX;
+	private final double[] moduleY;
+
+	// Module i's velocity is (vx - omega * inverseY[i], vy + omega * inverseX[i]), i.e. the rows of the
+	// inverse kinematics matrix are [1 0 -inverseY[i]] and [0 1 inverseX[i]]
+	private final double[] inverseX;
+	private final double[] inverseY;
+	// Rows of the pseudo-inverse, each interleaved as (x0, y0, x1, y1, ...)
+	private final double[] forwardVx;
+	private final double[] forwardVy;
+	private final double[] forwardOmega;
+
+	private double centerX = 0.0;
+	private double centerY = 0.0;
+	private double maxRadius;
+
+	public SwerveDriveKinematics(List<Translation2d> modulePositions) {
+		numModules = modulePositions.size();
+		if (numModules < 2)
+			throw new IllegalArgumentException("A swerve drive needs at least two modules");
+		moduleX = new double[numModules];
+		moduleY = new double[numModules];
+		for (int i = 0; i < numModules; i++) {
+			moduleX[i] = modulePositions.get(i).x();
+			moduleY[i] = modulePositions.get(i).y();
+		}
+		inverseX = new double[numModules];
+		inverseY = new double[numModules];
+		forwardVx = new double[2 * numModules];
+		forwardVy = new double[2 * numModules];
+		forwardOmega = new double[2 * numModules];
+		updateMatrices();
+	}
+
+	public int getNumberOfModules() {
+		return numModules;
+	}
+
+	/**
+	 * Moves the point the robot rotates about. Only the cached matrices are updated.
+	 */
+	public void setCenterOfRotation(double x, double y) {
+		centerX = x;
+		centerY = y;
+		updateMatrices();
+	}
+
+	public void setCenterOfRotation(Translation2d center) {
+		setCenterOfRotation(center.x(), center.y());
+	}
+
+	public Translation2d getCenterOfRotation() {
+		return new Translation2d(centerX, centerY);
+	}
+
+	/**
+	 * @return The distance from the center of rotation to the farthest module, which is the module
+	 *         speed per unit of omega at that module.
+	 */
+	public double getMaxModuleRadius() {
+		return maxRadius;
+	}
+
+	private void updateMatrices() {
+		// Normal equations: A^T A = [[N, 0, -sy], [0, N, sx], [-sy, sx, sr]]
+		double sx = 0.0, sy = 0.0, sr = 0.0;
+		maxRadius = 0.0;
+		for (int i = 0; i < numModules; i++) {
+			double rx = moduleX[i] - centerX;
+			double ry = moduleY[i] - centerY;
+			inverseX[i] = rx;
+			inverseY[i] = ry;
+			sx += rx;
+			sy += ry;
+			sr += rx * rx + ry * ry;
+			maxRadius = Math.max(maxRadius, Math.hypot(rx, ry));
+		}
+		double n = numModules;
+		// Cofactors of the symmetric 3x3 above
+		double c00 = n * sr - sx * sx, c01 = -sx * sy, c02 = n * sy;
+		double c11 = n * sr - sy * sy, c12 = -n * sx;
+		double c22 = n * n;
+		double det = n * c00 - sy * c02;
+		if (Math.abs(det) < 1E-12 * Math.max(1.0, n * n * sr))
+			throw new IllegalArgumentException("Module positions must not all coincide");
+		c00 /= det;
+		c01 /= det;
+		c02 /= det;
+		c11 /= det;
+		c12 /= det;
+		c22 /= det;
+		// (A^T A)^-1 A^T, one column pair per module
+		for (int i = 0; i < numModules; i++) {
+			double rx = inverseX[i], ry = inverseY[i];
+			forwardVx[2 * i] = c00 - c02 * ry;
+			forwardVx[2 * i + 1] = c01 + c02 * rx;
+			forwardVy[2 * i] = c01 - c12 * ry;
+			forwardVy[2 * i + 1] = c11 + c12 * rx;
+			forwardOmega[2 * i] = c02 - c22 * ry;
+			forwardOmega[2 * i + 1] = c12 + c22 * rx;
+		}
+	}
+
+	/**
+	 * Computes each module's velocity vector for a chassis velocity.
+	 */
+	public void toModuleVelocities(double vx, double vy, double omega, double[] moduleVx, double[] moduleVy) {
+		for (int i = 0; i < numModules; i++) {
+			moduleVx[i] = vx - omega * inverseY[i];
+			moduleVy[i] = vy + omega * inverseX[i];
+		}
+	}
+
+	/**
+	 * Computes each module's speed and steering angle for a chassis velocity. A module with no
+	 * velocity gets an angle of zero; callers will usually want to hold its previous angle instead.
+	 *
+	 * @param speeds Module speeds, non-negative.
+	 * @param angles Module angles, in radians.
+	 */
+	public void toModuleStates(double vx, double vy, double omega, double[] speeds, double[] angles) {
+		for (int i = 0; i < numModules; i++) {
+			double x = vx - omega * inverseY[i];
+			double y = vy + omega * inverseX[i];
+			speeds[i] = Math.hypot(x, y);
+			angles[i] = Math.atan2(y, x);
+		}
+	}
+
+	/**
+	 * Computes the chassis velocity that best fits the measured module velocities, in the least
+	 * squares sense. vx and vy are the velocity of the center of rotation; see
+	 * {@link #toRobotCenter(double[])}.
+	 *
+	 * @param out Filled with vx, vy, omega.
+	 */
+	public void toChassisVelocity(double[] moduleVx, double[] moduleVy, double[] out) {
+		double vx = 0.0, vy = 0.0, omega = 0.0;
+		for (int i = 0; i < numModules; i++) {
+			double x = moduleVx[i], y = moduleVy[i];
+			vx += forwardVx[2 * i] * x + forwardVx[2 * i + 1] * y;
+			vy += forwardVy[2 * i] * x + forwardVy[2 * i + 1] * y;
+			omega += forwardOmega[2 * i] * x + forwardOmega[2 * i + 1] * y;
+		}
+		out[0] = vx;
+		out[1] = vy;
+		out[2] = omega;
+	}
+
+	/**
+	 * Same as {@link #toChassisVelocity(double[], double[], double[])}, from module speeds and angles
+	 * in radians.
+	 */
+	public void toChassisVelocityFromStates(double[] speeds, double[] angles, double[] out) {
+		double vx = 0.0, vy = 0.0, omega = 0.0;
+		for (int i = 0; i < numModules; i++) {
+			double x = speeds[i] * Math.cos(angles[i]), y = speeds[i] * Math.sin(angles[i]);
+			vx += forwardVx[2 * i] * x + forwardVx[2 * i + 1] * y;
+			vy += forwardVy[2 * i] * x + forwardVy[2 * i + 1] * y;
+			omega += forwardOmega[2 * i] * x + forwardOmega[2 * i + 1] * y;
+		}
+		out[0] = vx;
+		out[1] = vy;
+		out[2] = omega;
+	}
+
+	/**
+	 * Converts a chassis velocity about the current center of rotation, as computed by
+	 * {@link #toChassisVelocity(double[], double[], double[])}, to the velocity of the robot center.
+	 * Does nothing if the center of rotation is the robot center.
+	 *
+	 * @param chassis vx, vy, omega; vx and vy are replaced
+	 */
+	public void toRobotCenter(double[] chassis) {
+		// The robot center is at -center from the center of rotation
+		chassis[0] += chassis[2] * centerY;
+		chassis[1] -= chassis[2] * centerX;
+	}
+
+	/**
+	 * Scales the speeds down together, if needed, so none exceeds maxSpeed.
+	 *
+	 * @return The factor the speeds were scaled by.
+	 */
+	public static double desaturate(double[] speeds, int count, double maxSpeed) {
+		double max = 0.0;
+		for (int i = 0; i < count; i++)
+			max = Math.max(max, Math.abs(speeds[i]));
+		if (max <= maxSpeed)
+			return 1.0;
+		double scale = maxSpeed / max;
+		for (int i = 0; i < count; i++)
+			speeds[i] *= scale;
+		return scale;
+	}
+}
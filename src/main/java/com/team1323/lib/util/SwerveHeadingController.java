@@ -1,8 +1,8 @@
 package com.team1323.lib.util;
 
-import com.team1323.frc2018.Constants;
+import org.team5940.pantry.lib.time.Clock;
 
-import edu.wpi.first.wpilibj.Timer;
+import com.team1323.frc2018.Constants;
 
 public class SwerveHeadingController {
 	private double targetHeading;
@@ -12,6 +12,7 @@ public class SwerveHeadingController {
 	private SynchronousPIDF stabilizationPID;
 	private SynchronousPIDF snapPID;
 	private SynchronousPIDF stationaryPID;
+	private final Clock clock;
 
 	public enum State {
 		Off, Stabilize, Snap, TemporaryDisable, Stationary
@@ -28,6 +29,14 @@ public class SwerveHeadingController {
 	}
 
 	public SwerveHeadingController() {
+		this(Clock.fpga());
+	}
+
+	/**
+	 * @param clock the clock timestamps passed to {@link #updateRotationCorrection} come from
+	 */
+	public SwerveHeadingController(Clock clock) {
+		this.clock = clock;
 		if (Constants.kIsUsingTractionWheels) {
 			stabilizationPID = new SynchronousPIDF(0.005, 0.0, 0.0005, 0.0);
 			snapPID = new SynchronousPIDF(0.015, 0.0, 0.0, 0.0);
@@ -39,7 +48,7 @@ public class SwerveHeadingController {
 		}
 
 		targetHeading = 0;
-		lastUpdateTimestamp = Timer.getFPGATimestamp();
+		lastUpdateTimestamp = clock.getTimestamp();
 	}
 
 	public void setStabilizationTarget(double angle) {
@@ -63,7 +72,7 @@ public class SwerveHeadingController {
 
 	public void temporarilyDisable() {
 		setState(State.TemporaryDisable);
-		disabledTimestamp = Timer.getFPGATimestamp();
+		disabledTimestamp = clock.getTimestamp();
 	}
 
 	public double getTargetHeading() {
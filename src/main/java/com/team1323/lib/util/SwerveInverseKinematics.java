@@ -16,39 +16,99 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 public class SwerveInverseKinematics {
 
 	public SwerveInverseKinematics() {
+		this(Constants.kModulePositions);
+	}
+
+	public SwerveInverseKinematics(List<Translation2d> modulePositions) {
+		kNumberOfModules = modulePositions.size();
+		kinematics = new SwerveDriveKinematics(modulePositions);
+		moduleVx = new double[kNumberOfModules];
+		moduleVy = new double[kNumberOfModules];
+		speeds = new double[kNumberOfModules];
+		angles = new double[kNumberOfModules];
 		setCenterOfRotation(new Translation2d());
 	}
 
-	private final int kNumberOfModules = 4;
+	private static final double kEpsilon = 1E-9;
 
-	private List<Translation2d> moduleRelativePositions = Constants.kModulePositions;
-	private List<Translation2d> moduleRotationDirections = updateRotationDirections();
+	private final int kNumberOfModules;
 
-	private List<Translation2d> updateRotationDirections() {
-		List<Translation2d> directions = new ArrayList<>(kNumberOfModules);
-		for (int i = 0; i < kNumberOfModules; i++) {
-			directions.add(moduleRelativePositions.get(i).rotateBy(Rotation2d.fromDegrees(90)));
-		}
-		return directions;
-	}
+	private final SwerveDriveKinematics kinematics;
+	// Rotational magnitude 1 drives the module farthest from the center of rotation at full speed
+	private double rotationScale;
+	private final double[] moduleVx;
+	private final double[] moduleVy;
+	// Scratch for the List version
+	private final double[] speeds;
+	private final double[] angles;
 
 	public void setCenterOfRotation(Translation2d center) {
-		List<Translation2d> positions = new ArrayList<>(kNumberOfModules);
-		double maxMagnitude = 0.0;
+		kinematics.setCenterOfRotation(center);
+		rotationScale = 1.0 / kinematics.getMaxModuleRadius();
+	}
+
+	/**
+	 * Publishes the commanded translation to the dashboard every {@code decimation} updates, or never if
+	 * it is zero, which is the default. Publishing is kept off the control loop unless asked for.
+	 */
+	public void setTelemetryDecimation(int decimation) {
+		if (decimation < 0)
+			throw new IllegalArgumentException("Telemetry decimation must not be negative");
+		telemetryDecimation = decimation;
+		updateCount = 0;
+	}
+
+	private int telemetryDecimation = 0;
+	private int updateCount = 0;
+
+	private void outputTelemetry(double x, double y) {
+		if (telemetryDecimation == 0 || updateCount++ % telemetryDecimation != 0)
+			return;
+		SmartDashboard.putNumber("Vector Direction", Math.toDegrees(Math.atan2(y, x)));
+		//SmartDashboard.putNumber("Vector Magnitude", Math.hypot(x, y));
+		SmartDashboard.putNumber("Robot Velocity", Math.hypot(x, y));
+	}
+
+	/**
+	 * Computes module speeds and angles without allocating. Speeds are scaled down together so none
+	 * exceeds 1. A module that is commanded to stop keeps the angle already in its slot of
+	 * {@code angles}, so reusing the same array across loops holds the module's last heading.
+	 *
+	 * @param x                   the x component of the requested motion
+	 * @param y                   the y component of the requested motion
+	 * @param rotationalMagnitude rotation power; 1 drives the module farthest from the center of rotation at full speed
+	 * @param robotHeading        the current estimated robot heading; ignored, and may be null, if robot centric
+	 * @param robotCentric        if the motion is robot centric or not
+	 * @param speeds              filled with each module's speed, from 0 to 1
+	 * @param angles              filled with each module's angle, in degrees
+	 */
+	public void updateDriveVectors(double x, double y, double rotationalMagnitude, Rotation2d robotHeading,
+			boolean robotCentric, double[] speeds, double[] angles) {
+		outputTelemetry(x, y);
+
+		if (!robotCentric) {
+			// put the translation vector in the robot's scope
+			double cos = robotHeading.cos(), sin = robotHeading.sin();
+			double robotX = x * cos + y * sin;
+			y = y * cos - x * sin;
+			x = robotX;
+		}
+		kinematics.toModuleVelocities(x, y, rotationalMagnitude * rotationScale, moduleVx, moduleVy);
+		double maxMagnitude = 1.0;
 		for (int i = 0; i < kNumberOfModules; i++) {
-			Translation2d position = Constants.kModulePositions.get(i).translateBy(center.inverse());
-			positions.add(position);
-			double magnitude = position.norm();
+			double magnitude = Math.hypot(moduleVx[i], moduleVy[i]);
+			speeds[i] = magnitude;
 			if (magnitude > maxMagnitude) {
 				maxMagnitude = magnitude;
 			}
 		}
 		for (int i = 0; i < kNumberOfModules; i++) {
-			Translation2d position = positions.get(i);
-			positions.set(i, position.scale(1.0 / maxMagnitude));
+			moduleVx[i] /= maxMagnitude;
+			moduleVy[i] /= maxMagnitude;
+			speeds[i] /= maxMagnitude;
+			if (speeds[i] > kEpsilon)
+				angles[i] = Math.toDegrees(Math.atan2(moduleVy[i], moduleVx[i]));
 		}
-		moduleRelativePositions = positions;
-		moduleRotationDirections = updateRotationDirections();
 	}
 
 	/**
@@ -61,26 +121,12 @@ public class SwerveInverseKinematics {
 	 */
 	public List<Translation2d> updateDriveVectors(Translation2d translationalVector, double rotationalMagnitude,
 			Pose2d robotPose, boolean robotCentric) {
-		SmartDashboard.putNumber("Vector Direction", translationalVector.direction().getDegrees());
-		//SmartDashboard.putNumber("Vector Magnitude", translationalVector.norm());
-		SmartDashboard.putNumber("Robot Velocity", translationalVector.norm());
-
-		if (!robotCentric)
-			translationalVector = translationalVector.rotateBy(robotPose.getRotation().inverse()); // put the translation vector in the robot's scope
+		// The pose is only needed field centric, and may be null when driving robot centric
+		updateDriveVectors(translationalVector.x(), translationalVector.y(), rotationalMagnitude,
+				robotCentric ? null : robotPose.getRotation(), robotCentric, speeds, angles);
 		List<Translation2d> driveVectors = new ArrayList<>(kNumberOfModules);
 		for (int i = 0; i < kNumberOfModules; i++) {
-			driveVectors.add(translationalVector.translateBy(moduleRotationDirections.get(i).scale(rotationalMagnitude)));
-		}
-		double maxMagnitude = 1.0;
-		for (Translation2d t : driveVectors) {
-			double magnitude = t.norm();
-			if (magnitude > maxMagnitude) {
-				maxMagnitude = magnitude;
-			}
-		}
-		for (int i = 0; i < kNumberOfModules; i++) {
-			Translation2d driveVector = driveVectors.get(i);
-			driveVectors.set(i, driveVector.scale(1.0 / maxMagnitude));
+			driveVectors.add(new Translation2d(moduleVx[i], moduleVy[i]));
 		}
 		return driveVectors;
 	}
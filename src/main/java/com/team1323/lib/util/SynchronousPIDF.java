@@ -1,5 +1,8 @@
 package com.team1323.lib.util;
 
+import org.team5940.pantry.experimental.controller.PIDCore;
+import org.team5940.pantry.experimental.controller.PIDCore.IntegralMode;
+
 import edu.wpi.first.hal.util.BoundaryException;
 
 /**
@@ -7,34 +10,24 @@ import edu.wpi.first.hal.util.BoundaryException;
  * 
  * Does all computation synchronously (i.e. the calculate() function must be
  * called by the user from his own thread)
+ * 
+ * The math is done by a {@link PIDCore}, which resets the integral whenever the
+ * proportional term alone would saturate the output.
  */
 public class SynchronousPIDF {
-	private double m_P; // factor for "proportional" control
-	private double m_I; // factor for "integral" control
-	private double m_D; // factor for "derivative" control
-	private double m_F; // factor for feed forward gain
-	private double m_maximumOutput = 1.0; // |maximum output|
-	private double m_minimumOutput = -1.0; // |minimum output|
+	private final PIDCore m_core = new PIDCore(0, 0, 0);
 	private double m_maximumInput = 0.0; // maximum input - limit setpoint to
 	// this
 	private double m_minimumInput = 0.0; // minimum input - limit setpoint to
 	// this
 	private boolean m_continuous = false; // do the endpoints wrap around? eg.
 	// Absolute encoder
-	private double m_prevError = 0.0; // the prior sensor input (used to compute
-	// velocity)
-	private double m_totalError = 0.0; // the sum of the errors for use in the
-	// integral calc
 	private double m_setpoint = 0.0;
-	private double m_error = 0.0;
-	private double m_result = 0.0;
 	private double m_last_input = Double.NaN;
-	private double m_deadband = 0.0; // If the absolute error is less than
-	// deadband
-	// then treat error for the proportional
-	// term as 0
 
-	public SynchronousPIDF() {}
+	public SynchronousPIDF() {
+		m_core.setIntegralMode(IntegralMode.kResetOutsideProportionalBand);
+	}
 
 	/**
 	 * Allocate a PID object with the given constants for P, I, D
@@ -47,10 +40,7 @@ public class SynchronousPIDF {
 	 *            the derivative coefficient
 	 */
 	public SynchronousPIDF(double Kp, double Ki, double Kd) {
-		m_P = Kp;
-		m_I = Ki;
-		m_D = Kd;
-		m_F = 0;
+		this(Kp, Ki, Kd, 0);
 	}
 
 	/**
@@ -66,10 +56,9 @@ public class SynchronousPIDF {
 	 *            the feed forward gain coefficient
 	 */
 	public SynchronousPIDF(double Kp, double Ki, double Kd, double Kf) {
-		m_P = Kp;
-		m_I = Ki;
-		m_D = Kd;
-		m_F = Kf;
+		this();
+		m_core.setPID(Kp, Ki, Kd);
+		m_core.setF(Kf);
 	}
 
 	/**
@@ -85,36 +74,7 @@ public class SynchronousPIDF {
 		if (dt < 1E-6)
 			dt = 1E-6;
 		m_last_input = input;
-		m_error = m_setpoint - input;
-		if (m_continuous) {
-			if (Math.abs(m_error) > (m_maximumInput - m_minimumInput) / 2) {
-				if (m_error > 0) {
-					m_error = m_error - m_maximumInput + m_minimumInput;
-				} else {
-					m_error = m_error + m_maximumInput - m_minimumInput;
-				}
-			}
-		}
-
-		if ((m_error * m_P < m_maximumOutput) && (m_error * m_P > m_minimumOutput)) {
-			m_totalError += m_error * dt;
-		} else {
-			m_totalError = 0;
-		}
-
-		// Don't blow away m_error so as to not break derivative
-		double proportionalError = Math.abs(m_error) < m_deadband ? 0 : m_error;
-
-		m_result = (m_P * proportionalError + m_I * m_totalError + m_D * (m_error - m_prevError) / dt
-				+ m_F * m_setpoint);
-		m_prevError = m_error;
-
-		if (m_result > m_maximumOutput) {
-			m_result = m_maximumOutput;
-		} else if (m_result < m_minimumOutput) {
-			m_result = m_minimumOutput;
-		}
-		return m_result;
+		return m_core.calculate(m_setpoint, input, dt);
 	}
 
 	/**
@@ -128,9 +88,7 @@ public class SynchronousPIDF {
 	 *            Differential coefficient
 	 */
 	public void setPID(double p, double i, double d) {
-		m_P = p;
-		m_I = i;
-		m_D = d;
+		m_core.setPID(p, i, d);
 	}
 
 	/**
@@ -146,10 +104,8 @@ public class SynchronousPIDF {
 	 *            Feed forward coefficient
 	 */
 	public void setPID(double p, double i, double d, double f) {
-		m_P = p;
-		m_I = i;
-		m_D = d;
-		m_F = f;
+		m_core.setPID(p, i, d);
+		m_core.setF(f);
 	}
 
 	/**
@@ -158,7 +114,7 @@ public class SynchronousPIDF {
 	 * @return proportional coefficient
 	 */
 	public double getP() {
-		return m_P;
+		return m_core.getP();
 	}
 
 	/**
@@ -167,7 +123,7 @@ public class SynchronousPIDF {
 	 * @return integral coefficient
 	 */
 	public double getI() {
-		return m_I;
+		return m_core.getI();
 	}
 
 	/**
@@ -176,7 +132,7 @@ public class SynchronousPIDF {
 	 * @return differential coefficient
 	 */
 	public double getD() {
-		return m_D;
+		return m_core.getD();
 	}
 
 	/**
@@ -185,7 +141,7 @@ public class SynchronousPIDF {
 	 * @return feed forward coefficient
 	 */
 	public double getF() {
-		return m_F;
+		return m_core.getF();
 	}
 
 	/**
@@ -194,7 +150,7 @@ public class SynchronousPIDF {
 	 * @return the latest calculated output
 	 */
 	public double get() {
-		return m_result;
+		return m_core.getOutput();
 	}
 
 	/**
@@ -207,10 +163,11 @@ public class SynchronousPIDF {
 	 */
 	public void setContinuous(boolean continuous) {
 		m_continuous = continuous;
+		m_core.setContinuous(m_continuous, m_maximumInput - m_minimumInput);
 	}
 
 	public void setDeadband(double deadband) {
-		m_deadband = deadband;
+		m_core.setDeadband(deadband);
 	}
 
 	/**
@@ -236,6 +193,7 @@ public class SynchronousPIDF {
 		}
 		m_minimumInput = minimumInput;
 		m_maximumInput = maximumInput;
+		m_core.setContinuous(m_continuous, m_maximumInput - m_minimumInput);
 		setSetpoint(m_setpoint);
 	}
 
@@ -251,8 +209,7 @@ public class SynchronousPIDF {
 		if (minimumOutput > maximumOutput) {
 			throw new BoundaryException("Lower bound is greater than upper bound");
 		}
-		m_minimumOutput = minimumOutput;
-		m_maximumOutput = maximumOutput;
+		m_core.setOutputRange(minimumOutput, maximumOutput);
 	}
 
 	/**
@@ -290,7 +247,7 @@ public class SynchronousPIDF {
 	 * @return the current error
 	 */
 	public double getError() {
-		return m_error;
+		return m_core.getError();
 	}
 
 	/**
@@ -307,22 +264,20 @@ public class SynchronousPIDF {
 	 */
 	public void reset() {
 		m_last_input = Double.NaN;
-		m_prevError = 0;
-		m_totalError = 0;
-		m_result = 0;
+		m_core.reset();
 		m_setpoint = 0;
 	}
 
 	public void resetIntegrator() {
-		m_totalError = 0;
+		m_core.resetIntegrator();
 	}
 
 	public String getState() {
 		String lState = "";
 
-		lState += "Kp: " + m_P + "\n";
-		lState += "Ki: " + m_I + "\n";
-		lState += "Kd: " + m_D + "\n";
+		lState += "Kp: " + m_core.getP() + "\n";
+		lState += "Ki: " + m_core.getI() + "\n";
+		lState += "Kd: " + m_core.getD() + "\n";
 
 		return lState;
 	}
@@ -22,21 +22,38 @@ public class DistanceView<S extends State<S>> implements TrajectoryView<S> {
 			return new TrajectorySamplePoint<S>(trajectory_.getPoint(trajectory_.length() - 1));
 		if (distance <= 0.0)
 			return new TrajectorySamplePoint<S>(trajectory_.getPoint(0));
-		for (int i = 1; i < distances_.length; ++i) {
+		// Binary search for the first state at least as far along as distance.
+		int lo = 1;
+		int hi = distances_.length - 1;
+		while (lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (distances_[mid] >= distance) {
+				hi = mid;
+			} else {
+				lo = mid + 1;
+			}
+		}
+		final int i = lo;
+		if (distances_[i] >= distance) {
 			final TrajectoryPoint<S> s = trajectory_.getPoint(i);
-			if (distances_[i] >= distance) {
-				final TrajectoryPoint<S> prev_s = trajectory_.getPoint(i - 1);
-				if (Util.epsilonEquals(distances_[i], distances_[i - 1])) {
-					return new TrajectorySamplePoint<S>(s);
-				} else {
-					return new TrajectorySamplePoint<S>(prev_s.state().interpolate(s.state(),
-							(distance - distances_[i - 1]) / (distances_[i] - distances_[i - 1])), i - 1, i);
-				}
+			final TrajectoryPoint<S> prev_s = trajectory_.getPoint(i - 1);
+			if (Util.epsilonEquals(distances_[i], distances_[i - 1])) {
+				return new TrajectorySamplePoint<S>(s);
+			} else {
+				return new TrajectorySamplePoint<S>(prev_s.state().interpolate(s.state(),
+						(distance - distances_[i - 1]) / (distances_[i] - distances_[i - 1])), i - 1, i);
 			}
 		}
 		throw new RuntimeException();
 	}
 
+	/**
+	 * @return The distance along the trajectory of the state at the given index.
+	 */
+	public double distanceAt(int index) {
+		return distances_[index];
+	}
+
 	@Override
 	public double last_interpolant() {
 		return distances_[distances_.length - 1];
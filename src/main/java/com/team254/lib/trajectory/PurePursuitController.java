@@ -1,9 +1,12 @@
 package com.team254.lib.trajectory;
 
 import com.team254.lib.geometry.*;
+import com.team254.lib.util.Util;
 
 public class PurePursuitController<S extends ITranslation2d<S>> {
+	protected final DistanceView<S> path_;
 	protected final TrajectoryIterator<S> iterator_;
+	// No longer used by steer(), which solves for the lookahead point directly; kept so existing callers compile.
 	protected final double sampling_dist_;
 	protected final double lookahead_;
 	protected final double goal_tolerance_;
@@ -14,6 +17,7 @@ public class PurePursuitController<S extends ITranslation2d<S>> {
 		sampling_dist_ = sampling_dist;
 		lookahead_ = lookahead;
 		goal_tolerance_ = goal_tolerance;
+		path_ = path;
 		iterator_ = new TrajectoryIterator<S>(path);
 	}
 
@@ -24,27 +28,52 @@ public class PurePursuitController<S extends ITranslation2d<S>> {
 			return new Translation2d();
 		}
 
-		final double remaining_progress = iterator_.getRemainingProgress();
-		double goal_progress = 0.0;
-		// Find the first point > lookahead distance away from current_pose, or the last point otherwise.
-		for (double progress = 0.0; progress <= remaining_progress; progress = Math.min(remaining_progress,
-				progress + sampling_dist_)) {
-			double dist = current_pose.getTranslation().distance(iterator_.preview(progress).state().getTranslation());
-			if (dist > lookahead_) {
-				if (goal_progress == 0.0 && !iterator_.isDone()) {
-					// Make sure we don't get stuck due to numerical issues when sampling dist is large relative to
-					// lookahead.
-					goal_progress = progress;
-				}
-				break;
+		iterator_.advance(findLookaheadProgress(current_pose.getTranslation()) - iterator_.getProgress());
+		return new Translation2d(current_pose.getTranslation(), iterator_.getState().getTranslation());
+	}
+
+	/**
+	 * Finds the first point ahead of the iterator where the path leaves the lookahead circle around the robot, or the
+	 * end of the path if it never does. Each segment is intersected with the circle in closed form, starting from the
+	 * iterator's current segment, so a call usually only touches the one or two segments nearest the robot.
+	 *
+	 * @return The distance along the path of the lookahead point.
+	 */
+	protected double findLookaheadProgress(final Translation2d robot) {
+		final Trajectory<S> trajectory = path_.trajectory();
+		final double radius2 = lookahead_ * lookahead_;
+
+		double start_progress = iterator_.getProgress();
+		double ax = iterator_.getState().getTranslation().x() - robot.x();
+		double ay = iterator_.getState().getTranslation().y() - robot.y();
+		if (ax * ax + ay * ay > radius2) {
+			// Already outside the circle; hold position rather than skip ahead along the path.
+			return start_progress;
+		}
+
+		for (int i = iterator_.getSample().index_floor() + 1; i < trajectory.length(); ++i) {
+			final Translation2d end = trajectory.getState(i).getTranslation();
+			final double end_progress = path_.distanceAt(i);
+			final double bx = end.x() - robot.x();
+			final double by = end.y() - robot.y();
+			if (end_progress > start_progress && bx * bx + by * by >= radius2) {
+				// Solve |a + t * (b - a)|^2 = r^2 for the root where the segment exits the circle.
+				final double dx = bx - ax;
+				final double dy = by - ay;
+				final double a = dx * dx + dy * dy;
+				final double half_b = ax * dx + ay * dy;
+				final double c = ax * ax + ay * ay - radius2;
+				final double t = a < Util.kEpsilon ? 1.0
+						: (-half_b + Math.sqrt(Math.max(0.0, half_b * half_b - a * c))) / a;
+				return start_progress + Util.limit(t, 0.0, 1.0) * (end_progress - start_progress);
 			}
-			goal_progress = progress;
-			if (progress == remaining_progress) {
-				break;
+			if (end_progress > start_progress) {
+				start_progress = end_progress;
 			}
+			ax = bx;
+			ay = by;
 		}
-		iterator_.advance(goal_progress);
-		return new Translation2d(current_pose.getTranslation(), iterator_.getState().getTranslation());
+		return path_.last_interpolant();
 	}
 
 	public boolean isDone() {
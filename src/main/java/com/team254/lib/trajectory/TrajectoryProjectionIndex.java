@@ -0,0 +1,269 @@
+package com.team254.lib.trajectory;
+
+import com.team254.lib.geometry.ITranslation2d;
+import com.team254.lib.geometry.Translation2d;
+
+/**
+ * Finds the closest point on a trajectory to an arbitrary query point, e.g. the robot pose.
+ * <p>
+ * The trajectory is treated as a polyline through the translations of its states. On construction the segments are
+ * grouped into a bounding volume hierarchy over contiguous runs of the polyline, so a query only has to look at the
+ * handful of segments near the query point instead of the whole path. Successive queries from a moving robot can pass
+ * the previous segment index as a hint, which gives the search a tight bound before it touches the hierarchy.
+ * <p>
+ * Progress is measured the same way as {@link DistanceView}, so it can be handed straight to a
+ * {@link TrajectoryIterator} over a DistanceView of the same trajectory.
+ */
+public class TrajectoryProjectionIndex<S extends ITranslation2d<S>> {
+	private static final int kLeafSize = 4;
+	private static final int kHintWindow = 2;
+
+	protected final Trajectory<S> trajectory_;
+	protected final int num_segments_;
+	protected final double[] xs_;
+	protected final double[] ys_;
+	protected final double[] distances_;
+
+	// Flattened hierarchy. Node 0 is the root; leaves have left_ == -1 and cover segments [lo_, hi_).
+	private final double[] min_x_;
+	private final double[] min_y_;
+	private final double[] max_x_;
+	private final double[] max_y_;
+	private final int[] lo_;
+	private final int[] hi_;
+	private final int[] left_;
+	private final int[] right_;
+	private int num_nodes_ = 0;
+
+	public TrajectoryProjectionIndex(final Trajectory<S> trajectory) {
+		if (trajectory.isEmpty()) {
+			throw new IllegalArgumentException("Cannot index an empty trajectory");
+		}
+		trajectory_ = trajectory;
+		// A single state is indexed as one zero-length segment.
+		final int num_points = Math.max(2, trajectory.length());
+		num_segments_ = num_points - 1;
+		xs_ = new double[num_points];
+		ys_ = new double[num_points];
+		distances_ = new double[num_points];
+		for (int i = 0; i < num_points; ++i) {
+			final int index = Math.min(i, trajectory.length() - 1);
+			final Translation2d translation = trajectory.getState(index).getTranslation();
+			xs_[i] = translation.x();
+			ys_[i] = translation.y();
+			if (i > 0) {
+				distances_[i] = distances_[i - 1]
+						+ trajectory.getState(Math.min(i - 1, index)).distance(trajectory.getState(index));
+			}
+		}
+
+		final int max_nodes = 2 * num_segments_ + 1;
+		min_x_ = new double[max_nodes];
+		min_y_ = new double[max_nodes];
+		max_x_ = new double[max_nodes];
+		max_y_ = new double[max_nodes];
+		lo_ = new int[max_nodes];
+		hi_ = new int[max_nodes];
+		left_ = new int[max_nodes];
+		right_ = new int[max_nodes];
+		build(0, num_segments_);
+	}
+
+	private int build(int lo, int hi) {
+		final int node = num_nodes_++;
+		lo_[node] = lo;
+		hi_[node] = hi;
+		if (hi - lo <= kLeafSize) {
+			left_[node] = right_[node] = -1;
+			double min_x = Double.POSITIVE_INFINITY, min_y = Double.POSITIVE_INFINITY;
+			double max_x = Double.NEGATIVE_INFINITY, max_y = Double.NEGATIVE_INFINITY;
+			for (int i = lo; i <= hi; ++i) {
+				min_x = Math.min(min_x, xs_[i]);
+				min_y = Math.min(min_y, ys_[i]);
+				max_x = Math.max(max_x, xs_[i]);
+				max_y = Math.max(max_y, ys_[i]);
+			}
+			min_x_[node] = min_x;
+			min_y_[node] = min_y;
+			max_x_[node] = max_x;
+			max_y_[node] = max_y;
+			return node;
+		}
+		final int mid = (lo + hi) >>> 1;
+		final int left = build(lo, mid);
+		final int right = build(mid, hi);
+		left_[node] = left;
+		right_[node] = right;
+		min_x_[node] = Math.min(min_x_[left], min_x_[right]);
+		min_y_[node] = Math.min(min_y_[left], min_y_[right]);
+		max_x_[node] = Math.max(max_x_[left], max_x_[right]);
+		max_y_[node] = Math.max(max_y_[left], max_y_[right]);
+		return node;
+	}
+
+	public Trajectory<S> trajectory() {
+		return trajectory_;
+	}
+
+	/**
+	 * @return The distance along the trajectory of its last state.
+	 */
+	public double getLength() {
+		return distances_[distances_.length - 1];
+	}
+
+	public Projection project(final Translation2d point) {
+		return project(point, -1);
+	}
+
+	/**
+	 * @param hint The segment index of a previous projection, or -1 if there is none.
+	 */
+	public Projection project(final Translation2d point, int hint) {
+		final Projection result = new Projection();
+		project(point.x(), point.y(), hint, result);
+		return result;
+	}
+
+	/**
+	 * Allocation-free form of {@link #project(Translation2d, int)} for use inside control loops.
+	 *
+	 * @param hint   The segment index of a previous projection, or -1 if there is none.
+	 * @param result Overwritten with the projection.
+	 * @return result
+	 */
+	public Projection project(double x, double y, int hint, final Projection result) {
+		result.distance2_ = Double.POSITIVE_INFINITY;
+		if (hint >= 0) {
+			final int lo = Math.max(0, hint - kHintWindow);
+			final int hi = Math.min(num_segments_, hint + kHintWindow + 1);
+			for (int i = lo; i < hi; ++i) {
+				testSegment(i, x, y, result);
+			}
+		}
+		search(0, x, y, result);
+
+		final int i = result.segment_;
+		final double dx = xs_[i + 1] - xs_[i];
+		final double dy = ys_[i + 1] - ys_[i];
+		final double length = Math.hypot(dx, dy);
+		result.progress_ = distances_[i] + result.fraction_ * (distances_[i + 1] - distances_[i]);
+		result.distance_ = Math.sqrt(result.distance2_);
+		// Positive when the query point is to the left of the direction of travel.
+		result.cross_track_error_ = length < 1E-12 ? result.distance_
+				: (dx * (y - ys_[i]) - dy * (x - xs_[i])) / length;
+		return result;
+	}
+
+	private void search(int node, double x, double y, final Projection result) {
+		if (boxDistance2(node, x, y) >= result.distance2_) {
+			return;
+		}
+		if (left_[node] < 0) {
+			for (int i = lo_[node]; i < hi_[node]; ++i) {
+				testSegment(i, x, y, result);
+			}
+			return;
+		}
+		final int left = left_[node];
+		final int right = right_[node];
+		// Descend into the closer child first so the farther one is more likely to be pruned.
+		if (boxDistance2(left, x, y) <= boxDistance2(right, x, y)) {
+			search(left, x, y, result);
+			search(right, x, y, result);
+		} else {
+			search(right, x, y, result);
+			search(left, x, y, result);
+		}
+	}
+
+	private double boxDistance2(int node, double x, double y) {
+		final double dx = Math.max(0.0, Math.max(min_x_[node] - x, x - max_x_[node]));
+		final double dy = Math.max(0.0, Math.max(min_y_[node] - y, y - max_y_[node]));
+		return dx * dx + dy * dy;
+	}
+
+	private void testSegment(int i, double x, double y, final Projection result) {
+		final double ax = xs_[i];
+		final double ay = ys_[i];
+		final double dx = xs_[i + 1] - ax;
+		final double dy = ys_[i + 1] - ay;
+		final double length2 = dx * dx + dy * dy;
+		double t = 0.0;
+		if (length2 > 1E-24) {
+			t = Math.max(0.0, Math.min(1.0, ((x - ax) * dx + (y - ay) * dy) / length2));
+		}
+		final double cx = ax + t * dx;
+		final double cy = ay + t * dy;
+		final double distance2 = (x - cx) * (x - cx) + (y - cy) * (y - cy);
+		// Ties go to the earlier segment so a point on a vertex reports the smaller progress.
+		if (distance2 < result.distance2_ || (distance2 == result.distance2_ && i < result.segment_)) {
+			result.distance2_ = distance2;
+			result.segment_ = i;
+			result.fraction_ = t;
+			result.x_ = cx;
+			result.y_ = cy;
+		}
+	}
+
+	/**
+	 * The closest point on the trajectory to a query point.
+	 */
+	public static class Projection {
+		protected int segment_;
+		protected double fraction_;
+		protected double x_;
+		protected double y_;
+		protected double distance2_;
+		protected double distance_;
+		protected double cross_track_error_;
+		protected double progress_;
+
+		/**
+		 * @return Index of the state at the start of the closest segment. Pass this as the hint for the next query.
+		 */
+		public int getSegmentIndex() {
+			return segment_;
+		}
+
+		/**
+		 * @return How far along the closest segment the projection lies, from 0 to 1.
+		 */
+		public double getSegmentFraction() {
+			return fraction_;
+		}
+
+		public Translation2d getClosestPoint() {
+			return new Translation2d(x_, y_);
+		}
+
+		public double getX() {
+			return x_;
+		}
+
+		public double getY() {
+			return y_;
+		}
+
+		/**
+		 * @return Unsigned distance from the query point to the trajectory.
+		 */
+		public double getDistance() {
+			return distance_;
+		}
+
+		/**
+		 * @return Signed distance from the trajectory to the query point, positive to the left of the path.
+		 */
+		public double getCrossTrackError() {
+			return cross_track_error_;
+		}
+
+		/**
+		 * @return Distance along the trajectory of the projection, in the same units as {@link DistanceView}.
+		 */
+		public double getProgress() {
+			return progress_;
+		}
+	}
+}
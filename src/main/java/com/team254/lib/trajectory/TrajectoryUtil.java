@@ -2,6 +2,8 @@ package com.team254.lib.trajectory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import com.team254.lib.geometry.*;
 import com.team254.lib.spline.QuinticHermiteSpline;
@@ -11,6 +13,9 @@ import com.team254.lib.trajectory.timing.TimedState;
 import com.team254.lib.util.Util;
 
 public class TrajectoryUtil {
+	// Same small-angle threshold as Pose2d.exp()
+	private static final double kExpEpsilon = 1E-9;
+
 	public static <S extends IPose2d<S>> Trajectory<S> mirror(final Trajectory<S> trajectory) {
 		List<S> waypoints = new ArrayList<>(trajectory.length());
 		for (int i = 0; i < trajectory.length(); ++i) {
@@ -60,50 +65,242 @@ public class TrajectoryUtil {
 
 	public static Trajectory<Pose2dWithCurvature> trajectoryFromPathFollower(IPathFollower path_follower,
 			Pose2dWithCurvature start_state, double step_size, double dcurvature_limit) {
+		return simulatePathFollower(path_follower, start_state, step_size, dcurvature_limit, Integer.MAX_VALUE)
+				.trajectory();
+	}
+
+	/**
+	 * Runs {@link #trajectoryFromPathFollower} for each configuration in parallel, e.g. to sweep follower parameters.
+	 * Each configuration gets a fresh follower from its supplier, since followers are stateful.
+	 *
+	 * @return One result per configuration, in the same order.
+	 */
+	public static List<PathFollowerSimulation> simulatePathFollowers(final List<PathFollowerConfig> configs,
+			final Pose2dWithCurvature start_state) {
+		return configs.parallelStream()
+				.map(config -> simulatePathFollower(config.follower().get(), start_state, config.stepSize(),
+						config.dcurvatureLimit(), config.maxSteps()))
+				.collect(Collectors.toList());
+	}
+
+	public static PathFollowerSimulation simulatePathFollower(IPathFollower path_follower,
+			Pose2dWithCurvature start_state, double step_size, double dcurvature_limit, int max_steps) {
 		List<Pose2dWithCurvature> samples = new ArrayList<Pose2dWithCurvature>();
 		samples.add(start_state);
-		Pose2dWithCurvature current_state = start_state;
-		while (!path_follower.isDone()) {
+
+		// The robot state is integrated as plain doubles; the only allocations per step are the pose handed to the
+		// follower and the sample that is kept.
+		Pose2d pose = start_state.getPose();
+		double x = pose.getTranslation().x();
+		double y = pose.getTranslation().y();
+		double cos = pose.getRotation().cos();
+		double sin = pose.getRotation().sin();
+		double curvature = start_state.getCurvature();
+
+		int steps = 0;
+		double length = 0.0;
+		double max_curvature = Math.abs(curvature);
+		double max_dcurvature = 0.0;
+		while (!path_follower.isDone() && steps < max_steps) {
 			// Get the desired steering command.
-			final Twist2d raw_steering_command = path_follower.steer(current_state.getPose());
+			final Twist2d raw_steering_command = path_follower.steer(pose);
+			double dx = raw_steering_command.dx;
+			double dy = raw_steering_command.dy;
+			double dtheta = raw_steering_command.dtheta;
 
 			// Truncate to the step size.
-			Twist2d steering_command = raw_steering_command;
-			if (steering_command.norm() > step_size) {
-				steering_command = steering_command.scaled(step_size / steering_command.norm());
+			double norm = norm(dx, dy);
+			if (norm > step_size) {
+				final double scale = step_size / norm;
+				dx *= scale;
+				dy *= scale;
+				dtheta *= scale;
+				norm = norm(dx, dy);
 			}
 
 			// Apply limits on spatial derivative of curvature, if desired.
-			final double dcurvature = (steering_command.curvature() - current_state.getCurvature())
-					/ steering_command.norm();
+			final double dcurvature = (curvature(dx, dy, dtheta) - curvature) / norm;
 			final boolean curvature_valid = !Double.isNaN(dcurvature) && !Double.isInfinite(dcurvature)
-					&& !Double.isNaN(current_state.getCurvature()) && !Double.isInfinite(current_state.getCurvature());
+					&& !Double.isNaN(curvature) && !Double.isInfinite(curvature);
 			if (dcurvature > dcurvature_limit && curvature_valid) {
-				steering_command = new Twist2d(steering_command.dx, steering_command.dy,
-						(dcurvature_limit * steering_command.norm() + current_state.getCurvature())
-								* steering_command.norm());
+				dtheta = (dcurvature_limit * norm + curvature) * norm;
 			} else if (dcurvature < -dcurvature_limit && curvature_valid) {
-				steering_command = new Twist2d(steering_command.dx, steering_command.dy,
-						(-dcurvature_limit * steering_command.norm() + current_state.getCurvature())
-								* steering_command.norm());
+				dtheta = (-dcurvature_limit * norm + curvature) * norm;
 			}
 
 			// Calculate the new state.
 			// Use the average curvature over the interval to compute the next state.
-			final Twist2d average_steering_command = !curvature_valid
-					? steering_command
-					: new Twist2d(steering_command.dx, steering_command.dy,
-							(current_state.getCurvature() + 0.5 * dcurvature * steering_command.norm())
-									* steering_command.norm());
-			current_state = new Pose2dWithCurvature(
-					current_state.getPose().transformBy(Pose2d.exp(average_steering_command)),
-					steering_command.curvature());
+			final double average_dtheta = !curvature_valid ? dtheta
+					: (curvature + 0.5 * dcurvature * norm) * norm;
+
+			// pose = pose.transformBy(Pose2d.exp(new Twist2d(dx, dy, average_dtheta)))
+			final double sin_theta = Math.sin(average_dtheta);
+			final double cos_theta = Math.cos(average_dtheta);
+			final double s, c;
+			if (Math.abs(average_dtheta) < kExpEpsilon) {
+				s = 1.0 - 1.0 / 6.0 * average_dtheta * average_dtheta;
+				c = .5 * average_dtheta;
+			} else {
+				s = sin_theta / average_dtheta;
+				c = (1.0 - cos_theta) / average_dtheta;
+			}
+			final double tx = dx * s - dy * c;
+			final double ty = dx * c + dy * s;
+			x += tx * cos - ty * sin;
+			y += tx * sin + ty * cos;
+			final double new_cos = cos * cos_theta - sin * sin_theta;
+			final double new_sin = cos * sin_theta + sin * cos_theta;
+			final double magnitude = Math.hypot(new_cos, new_sin);
+			if (magnitude > Util.kEpsilon) {
+				cos = new_cos / magnitude;
+				sin = new_sin / magnitude;
+			} else {
+				cos = 1.0;
+				sin = 0.0;
+			}
+
+			final double new_curvature = curvature(dx, dy, dtheta);
+			if (curvature_valid) {
+				max_dcurvature = Math.max(max_dcurvature, Math.abs(new_curvature - curvature) / norm);
+			}
+			curvature = new_curvature;
+			max_curvature = Math.max(max_curvature, Math.abs(curvature));
+			length += norm;
+			++steps;
+
+			pose = new Pose2d(x, y, new Rotation2d(cos, sin, false));
 			if (!path_follower.isDone()) {
-				samples.add(current_state);
+				samples.add(new Pose2dWithCurvature(pose, curvature));
 			}
 		}
 
-		return new Trajectory<Pose2dWithCurvature>(samples);
+		return new PathFollowerSimulation(new Trajectory<Pose2dWithCurvature>(samples), path_follower.isDone(), steps,
+				length, max_curvature, max_dcurvature, pose);
+	}
+
+	// Same as Twist2d.norm()
+	private static double norm(double dx, double dy) {
+		if (dy == 0.0)
+			return Math.abs(dx);
+		return Math.hypot(dx, dy);
+	}
+
+	// Same as Twist2d.curvature()
+	private static double curvature(double dx, double dy, double dtheta) {
+		final double norm = norm(dx, dy);
+		if (Math.abs(dtheta) < Util.kEpsilon && norm < Util.kEpsilon)
+			return 0.0;
+		return dtheta / norm;
+	}
+
+	/**
+	 * A set of parameters for {@link #simulatePathFollowers}.
+	 */
+	public static class PathFollowerConfig {
+		protected final Supplier<? extends IPathFollower> follower_;
+		protected final double step_size_;
+		protected final double dcurvature_limit_;
+		protected final int max_steps_;
+
+		public PathFollowerConfig(Supplier<? extends IPathFollower> follower, double step_size,
+				double dcurvature_limit) {
+			this(follower, step_size, dcurvature_limit, Integer.MAX_VALUE);
+		}
+
+		/**
+		 * @param max_steps Give up after this many steps, so a badly tuned follower that never finishes can't stall a
+		 *                  sweep.
+		 */
+		public PathFollowerConfig(Supplier<? extends IPathFollower> follower, double step_size,
+				double dcurvature_limit, int max_steps) {
+			follower_ = follower;
+			step_size_ = step_size;
+			dcurvature_limit_ = dcurvature_limit;
+			max_steps_ = max_steps;
+		}
+
+		public Supplier<? extends IPathFollower> follower() {
+			return follower_;
+		}
+
+		public double stepSize() {
+			return step_size_;
+		}
+
+		public double dcurvatureLimit() {
+			return dcurvature_limit_;
+		}
+
+		public int maxSteps() {
+			return max_steps_;
+		}
+	}
+
+	/**
+	 * The trajectory generated by simulating a path follower, along with summary metrics.
+	 */
+	public static class PathFollowerSimulation {
+		protected final Trajectory<Pose2dWithCurvature> trajectory_;
+		protected final boolean finished_;
+		protected final int steps_;
+		protected final double length_;
+		protected final double max_curvature_;
+		protected final double max_dcurvature_;
+		protected final Pose2d final_pose_;
+
+		public PathFollowerSimulation(Trajectory<Pose2dWithCurvature> trajectory, boolean finished, int steps,
+				double length, double max_curvature, double max_dcurvature, Pose2d final_pose) {
+			trajectory_ = trajectory;
+			finished_ = finished;
+			steps_ = steps;
+			length_ = length;
+			max_curvature_ = max_curvature;
+			max_dcurvature_ = max_dcurvature;
+			final_pose_ = final_pose;
+		}
+
+		public Trajectory<Pose2dWithCurvature> trajectory() {
+			return trajectory_;
+		}
+
+		/**
+		 * @return Whether the follower reported it was done, rather than running out of steps.
+		 */
+		public boolean finished() {
+			return finished_;
+		}
+
+		public int steps() {
+			return steps_;
+		}
+
+		/**
+		 * @return Total distance driven.
+		 */
+		public double length() {
+			return length_;
+		}
+
+		/**
+		 * @return Largest absolute curvature commanded.
+		 */
+		public double maxCurvature() {
+			return max_curvature_;
+		}
+
+		/**
+		 * @return Largest absolute change in curvature per unit distance, after the dcurvature limit.
+		 */
+		public double maxDCurvature() {
+			return max_dcurvature_;
+		}
+
+		/**
+		 * @return Pose after the last step, including the one on which the follower finished.
+		 */
+		public Pose2d finalPose() {
+			return final_pose_;
+		}
 	}
 
 	public static Trajectory<Pose2dWithCurvature> trajectoryFromSplineWaypoints(final List<Pose2d> waypoints, double maxDx, double maxDy, double maxDTheta) {
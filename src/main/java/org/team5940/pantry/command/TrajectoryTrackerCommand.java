@@ -16,14 +16,19 @@ import org.ghrobotics.lib.subsystems.drive.TrajectoryTrackerDriveBase;
 import org.ghrobotics.lib.subsystems.drive.TrajectoryTrackerOutput;
 import org.team5940.pantry.experimental.command.SendableCommandBase;
 import org.team5940.pantry.experimental.command.Subsystem;
-
-import edu.wpi.first.wpilibj.Notifier;
-import edu.wpi.first.wpilibj.Timer;
+import org.team5940.pantry.lib.FixedPeriodLoop;
+import org.team5940.pantry.lib.LoopTiming;
+import org.team5940.pantry.lib.time.PeriodicExecutor;
 
 // @SuppressWarnings({"WeakerAccess", "unused"})
 public class TrajectoryTrackerCommand extends SendableCommandBase {
+	private static final double kLoopPeriod = 0.01;
+	// Publish the reference pose at 20 Hz rather than every loop
+	private static final int kTelemetryDecimation = 5;
+
 	private TrajectoryTracker trajectoryTracker;
 	private Supplier<TimedTrajectory<Pose2dWithCurvature>> trajectorySource;
+	private TimedTrajectory<Pose2dWithCurvature> preloadedTrajectory;
 	private boolean reset;
 	private TrajectoryTrackerOutput output;
 	// TODO make sure that this fabled namespace collision doesn't happen on Shuffleboard 
@@ -35,7 +40,10 @@ public class TrajectoryTrackerCommand extends SendableCommandBase {
 	// private NetworkTableEntry refVelEntry = Shuffleboard.getTab("Auto").getLayout("List", "Pathing info").add("Reference Velocity", 0).getEntry();
 	// private NetworkTableEntry currentVelEntry = Shuffleboard.getTab("Auto").getLayout("List", "Pathing info").add("Current Velocity", 0).getEntry();
 
-	Notifier mUpdateNotifier;
+	FixedPeriodLoop mUpdateLoop;
+	// Time along the trajectory, summed from the loop's measured dt; only touched by the loop
+	private double trajectoryTime;
+	private final PeriodicExecutor executor;
 	private Supplier<TrajectoryTracker> trajectoryTrackerGetter;
     private TrajectoryTrackerDriveBase driveBase;
     private Supplier<Localization> localization;
@@ -49,7 +57,16 @@ public class TrajectoryTrackerCommand extends SendableCommandBase {
 	// }
 
     public TrajectoryTrackerCommand(TrajectoryTrackerDriveBase driveBase, Supplier<TrajectoryTracker> trajectoryTracker, Supplier<TimedTrajectory<Pose2dWithCurvature>> trajectorySource, Supplier<Localization> localization, boolean reset, Subsystem toRequire) {
+		this(PeriodicExecutor.notifier(), driveBase, trajectoryTracker, trajectorySource, localization, reset, toRequire);
+	}
+
+	/**
+	 * Creates a command whose follower loop runs on the given executor, e.g. a
+	 * {@link org.team5940.pantry.lib.time.VirtualTime} to follow the trajectory in simulated time.
+	 */
+	public TrajectoryTrackerCommand(PeriodicExecutor executor, TrajectoryTrackerDriveBase driveBase, Supplier<TrajectoryTracker> trajectoryTracker, Supplier<TimedTrajectory<Pose2dWithCurvature>> trajectorySource, Supplier<Localization> localization, boolean reset, Subsystem toRequire) {
 		addRequirements(toRequire);
+		this.executor = executor;
 		this.driveBase = driveBase;
 		this.trajectoryTrackerGetter = trajectoryTracker;
 		this.trajectorySource = trajectorySource;
@@ -64,34 +81,41 @@ public class TrajectoryTrackerCommand extends SendableCommandBase {
 
 		LiveDashboard.INSTANCE.setFollowingPath(false);
 
-		trajectoryTracker.reset(this.trajectorySource.get());
+		TimedTrajectory<Pose2dWithCurvature> trajectory = getTrajectory();
+		trajectoryTracker.reset(trajectory);
 
 		if (reset == true) {
-			localization.get().reset(trajectorySource.get().getFirstState().getState().getPose());
+			localization.get().reset(trajectory.getFirstState().getState().getPose());
 		}
 
 		// Logger.log("desired linear, real linear");
 
 		LiveDashboard.INSTANCE.setFollowingPath(true);
 
-		mUpdateNotifier = new Notifier(() -> {
-			output = trajectoryTracker.nextState(driveBase.getRobotPosition(), TimeUnitsKt.getSecond(Timer.getFPGATimestamp()));
-
-			TrajectorySamplePoint<TimedEntry<Pose2dWithCurvature>> referencePoint = trajectoryTracker.getReferencePoint();
-			if (referencePoint != null) {
-				Pose2d referencePose = referencePoint.getState().getState().getPose();
-
-				LiveDashboard.INSTANCE.setPathX(referencePose.getTranslation().getX().getFeet());
-				LiveDashboard.INSTANCE.setPathY(referencePose.getTranslation().getY().getFeet());
-				LiveDashboard.INSTANCE.setPathHeading(referencePose.getRotation().getRadian());
+		trajectoryTime = 0;
+		if (mUpdateLoop == null) {
+			mUpdateLoop = new FixedPeriodLoop(executor, kLoopPeriod, this::update);
+			mUpdateLoop.setTelemetry(this::publishReference, kTelemetryDecimation);
+		}
+		mUpdateLoop.start();
+	}
 
-			}
+	private void update(double timestamp, double dt) {
+		// The tracker advances along the trajectory by the difference between successive times
+		trajectoryTime += dt;
+		output = trajectoryTracker.nextState(driveBase.getRobotPosition(), TimeUnitsKt.getSecond(trajectoryTime));
+		driveBase.setOutput(output);
+	}
 
-            driveBase.setOutput(output);
+	private void publishReference() {
+		TrajectorySamplePoint<TimedEntry<Pose2dWithCurvature>> referencePoint = trajectoryTracker.getReferencePoint();
+		if (referencePoint != null) {
+			Pose2d referencePose = referencePoint.getState().getState().getPose();
 
-        });
-        
-		mUpdateNotifier.startPeriodic(0.01);
+			LiveDashboard.INSTANCE.setPathX(referencePose.getTranslation().getX().getFeet());
+			LiveDashboard.INSTANCE.setPathY(referencePose.getTranslation().getY().getFeet());
+			LiveDashboard.INSTANCE.setPathHeading(referencePose.getRotation().getRadian());
+		}
 	}
 
 	@Override
@@ -101,7 +125,7 @@ public class TrajectoryTrackerCommand extends SendableCommandBase {
 
 	@Override
 	public void end(boolean interrupted) {
-		mUpdateNotifier.stop();
+		mUpdateLoop.stop();
 		driveBase.setOutput(new TrajectoryTrackerOutput(0, 0, 0, 0));
 		LiveDashboard.INSTANCE.setFollowingPath(false);
 	}
@@ -111,10 +135,73 @@ public class TrajectoryTrackerCommand extends SendableCommandBase {
 		return trajectoryTracker.isFinished();
 	}
 
+	/**
+	 * @return The preloaded trajectory if {@link #preload()} has been called, otherwise a fresh one
+	 *         from the trajectory source.
+	 */
 	public TimedTrajectory<Pose2dWithCurvature> getTrajectory() {
+		if (preloadedTrajectory != null) {
+			return preloadedTrajectory;
+		}
 		return this.trajectorySource.get();
 	}
 
+	/**
+	 * Resolves the trajectory source now and keeps the result, so generating the trajectory
+	 * doesn't happen in {@link #initialize()}. Call this while the robot is disabled. Every later
+	 * run of this command follows the preloaded trajectory until preload is called again.
+	 *
+	 * @return The preloaded trajectory.
+	 */
+	public TimedTrajectory<Pose2dWithCurvature> preload() {
+		preloadedTrajectory = this.trajectorySource.get();
+		return preloadedTrajectory;
+	}
+
+	/**
+	 * Preloads the trajectory and runs the tracker along it offline, so the JIT has compiled the
+	 * tracking code before the first real iteration. The robot pose fed to the tracker is the
+	 * reference pose from the previous step, starting at the first state of the trajectory, and
+	 * time advances by one loop period per step. Nothing is sent to the drive base.
+	 *
+	 * <p>This resets the tracker, so it must not be called while the command is scheduled. A few
+	 * thousand iterations are usually enough to get the hot paths compiled.
+	 *
+	 * @param iterations The number of tracker updates to run.
+	 */
+	public void warmUp(int iterations) {
+		if (isScheduled()) {
+			throw new IllegalStateException("Cannot warm up a trajectory tracker command while it is running");
+		}
+		TimedTrajectory<Pose2dWithCurvature> trajectory = preload();
+		TrajectoryTracker tracker = trajectoryTrackerGetter.get();
+
+		tracker.reset(trajectory);
+		Pose2d pose = trajectory.getFirstState().getState().getPose();
+		double time = 0;
+		for (int i = 0; i < iterations; i++) {
+			if (tracker.isFinished()) {
+				tracker.reset(trajectory);
+				pose = trajectory.getFirstState().getState().getPose();
+				time = 0;
+			}
+			tracker.nextState(pose, TimeUnitsKt.getSecond(time));
+			TrajectorySamplePoint<TimedEntry<Pose2dWithCurvature>> referencePoint = tracker.getReferencePoint();
+			if (referencePoint != null) {
+				pose = referencePoint.getState().getState().getPose();
+			}
+			time += kLoopPeriod;
+		}
+		tracker.reset(trajectory);
+	}
+
+	/**
+	 * @return Timing statistics of the follower loop, or null if the command has never run.
+	 */
+	public LoopTiming getLoopTiming() {
+		return mUpdateLoop == null ? null : mUpdateLoop.getTiming();
+	}
+
 	// Translation2d pose = Translation2dKt.
 
 
@@ -19,6 +19,7 @@ import java.util.Set;
 import java.util.function.Consumer;
 
 import org.team5940.pantry.experimental.buttons.Trigger.ButtonScheduler;
+import org.team5940.pantry.lib.time.Clock;
 
 import edu.wpi.first.hal.FRCNetComm.tInstances;
 import edu.wpi.first.hal.FRCNetComm.tResourceType;
@@ -72,6 +73,11 @@ public final class CommandScheduler extends SendableBase {
 
 	private boolean m_disabled;
 
+	private Clock m_clock = Clock.fpga();
+
+	//The clock of the scheduler currently scheduling or running commands on this thread, if any.
+	private static final ThreadLocal<Clock> s_activeClock = new ThreadLocal<>();
+
 	//NetworkTable entries for use in Sendable impl
 	private NetworkTableEntry m_namesEntry;
 	private NetworkTableEntry m_idsEntry;
@@ -88,6 +94,46 @@ public final class CommandScheduler extends SendableBase {
 		setName("Scheduler");
 	}
 
+	/**
+	 * Sets the clock used to time scheduled commands, such as {@link WaitCommand}s and
+	 * {@link #timeSinceScheduled(Command)}.  Defaults to the FPGA clock; simulations can pass a
+	 * {@link org.team5940.pantry.lib.time.VirtualTime} instead.  Commands already scheduled keep the
+	 * clock they were scheduled with.
+	 *
+	 * @param clock the clock to use
+	 */
+	public void setClock(Clock clock) {
+		m_clock = clock;
+	}
+
+	/**
+	 * Returns the clock used to time scheduled commands.
+	 *
+	 * @return the clock
+	 */
+	public Clock getClock() {
+		return m_clock;
+	}
+
+	/**
+	 * Returns the clock of the scheduler that is scheduling or running commands on this thread, so
+	 * commands started by a scheduler other than the default instance are timed by that scheduler's
+	 * clock.  Falls back to the default instance's clock when called from anywhere else.
+	 *
+	 * @return the clock
+	 */
+	static Clock activeClock() {
+		Clock clock = s_activeClock.get();
+		return clock != null ? clock : getInstance().getClock();
+	}
+
+	//Makes this scheduler's clock the active one; returns the previously active clock to restore
+	private Clock activate() {
+		Clock previous = s_activeClock.get();
+		s_activeClock.set(m_clock);
+		return previous;
+	}
+
 	/**
 	 * Adds a button binding to the scheduler, which will be polled to schedule commands.
 	 *
@@ -113,8 +159,17 @@ public final class CommandScheduler extends SendableBase {
 	 * @param command       the command to schedule
 	 * @param interruptible whether this command can be interrupted
 	 */
-	@SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.NPathComplexity"})
 	public void scheduleCommand(Command command, boolean interruptible) {
+		Clock previous = activate();
+		try {
+			schedule(command, interruptible);
+		} finally {
+			s_activeClock.set(previous);
+		}
+	}
+
+	@SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.NPathComplexity"})
+	private void schedule(Command command, boolean interruptible) {
 
 		if (CommandGroupBase.getGroupedCommands().contains(command)) {
 			throw new IllegalUseOfCommandException(
@@ -134,7 +189,7 @@ public final class CommandScheduler extends SendableBase {
 		//Schedule the command if the requirements are not currently in-use.
 		if (Collections.disjoint(m_requirements.keySet(), requirements)) {
 			command.initialize();
-			CommandState scheduledCommand = new CommandState(interruptible);
+			CommandState scheduledCommand = new CommandState(interruptible, m_clock);
 			m_scheduledCommands.put(command, scheduledCommand);
 			for (Consumer<Command> action : m_initActions) {
 				action.accept(command);
@@ -158,7 +213,7 @@ public final class CommandScheduler extends SendableBase {
 					}
 				}
 				command.initialize();
-				CommandState scheduledCommand = new CommandState(interruptible);
+				CommandState scheduledCommand = new CommandState(interruptible, m_clock);
 				m_scheduledCommands.put(command, scheduledCommand);
 				for (Consumer<Command> action : m_initActions) {
 					action.accept(command);
@@ -196,8 +251,17 @@ public final class CommandScheduler extends SendableBase {
 	 *
 	 * <p>Any subsystems not being used as requirements have their default methods started.
 	 */
-	@SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.NPathComplexity"})
 	public void run() {
+		Clock previous = activate();
+		try {
+			runCommands();
+		} finally {
+			s_activeClock.set(previous);
+		}
+	}
+
+	@SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.NPathComplexity"})
+	private void runCommands() {
 
 		if (m_disabled) {
 			return;
@@ -1,6 +1,6 @@
 package org.team5940.pantry.experimental.command;
 
-import edu.wpi.first.wpilibj.Timer;
+import org.team5940.pantry.lib.time.Clock;
 
 public class CommandState {
 
@@ -14,14 +14,17 @@ public class CommandState {
 	 */
 	private final boolean m_interruptible;
 
-	CommandState(boolean interruptible) {
+	private final Clock m_clock;
+
+	CommandState(boolean interruptible, Clock clock) {
 		m_interruptible = interruptible;
+		m_clock = clock;
 		startTiming();
 		startRunning();
 	}
 
 	private void startTiming() {
-		m_startTime = Timer.getFPGATimestamp();
+		m_startTime = m_clock.getTimestamp();
 	}
 
 	synchronized void startRunning() {
@@ -33,6 +36,6 @@ public class CommandState {
 	}
 
 	double timeSinceInitialized() {
-		return Timer.getFPGATimestamp() - m_startTime;
+		return m_clock.getTimestamp() - m_startTime;
 	}
 }
@@ -2,7 +2,7 @@ package org.team5940.pantry.experimental.command;
 
 import java.util.function.BooleanSupplier;
 
-import edu.wpi.first.wpilibj.Notifier;
+import org.team5940.pantry.lib.time.PeriodicExecutor;
 
 /**
  * A command that starts a notifier to run the given runnable periodically in a separate thread.
@@ -15,7 +15,7 @@ import edu.wpi.first.wpilibj.Notifier;
  */
 public class NotifierCommand extends SendableCommandBase {
 
-	protected final Notifier m_notifier;
+	protected final PeriodicExecutor.Task m_notifier;
 	protected final double m_period;
 
 	/**
@@ -26,7 +26,19 @@ public class NotifierCommand extends SendableCommandBase {
 	 * @param requirements the subsystems required by this command
 	 */
 	public NotifierCommand(Runnable toRun, double period, Subsystem... requirements) {
-		m_notifier = new Notifier(toRun);
+		this(PeriodicExecutor.notifier(), toRun, period, requirements);
+	}
+
+	/**
+	 * Creates a new NotifierCommand that runs on the given executor instead of a notifier.
+	 *
+	 * @param executor     the executor to run the runnable on
+	 * @param toRun        the runnable to run periodically
+	 * @param period       the period at which to run it, in seconds
+	 * @param requirements the subsystems required by this command
+	 */
+	public NotifierCommand(PeriodicExecutor executor, Runnable toRun, double period, Subsystem... requirements) {
+		m_notifier = executor.create(toRun);
 		m_period = period;
 		addRequirements(requirements);
 	}
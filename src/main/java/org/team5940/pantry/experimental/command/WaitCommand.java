@@ -1,13 +1,20 @@
 package org.team5940.pantry.experimental.command;
 
-import edu.wpi.first.wpilibj.Timer;
+import org.team5940.pantry.lib.time.Clock;
 
 /**
  * A command that does nothing but takes a specified amount of time to finish.  Useful for
- * CommandGroups.  Can also be subclassed to make a command with an internal timer.
+ * CommandGroups.  Can also be subclassed to make a command with an internal timer, using
+ * {@link #getElapsedTime()}.  Time is read from the clock of the {@link CommandScheduler} that
+ * schedules the command, so commands run by a scheduler with a simulated clock wait in simulated
+ * time.
+ *
+ * <p>The protected {@code Timer m_timer} field this class used to have is gone; subclasses that
+ * read it should call {@link #getElapsedTime()} instead.
  */
 public class WaitCommand extends SendableCommandBase {
-	protected Timer m_timer = new Timer();
+	protected Clock m_clock = Clock.fpga();
+	protected double m_startTime;
 	final double m_duration;
 
 	/**
@@ -22,8 +29,8 @@ public class WaitCommand extends SendableCommandBase {
 
 	@Override
 	public void initialize() {
-		m_timer.reset();
-		m_timer.start();
+		m_clock = CommandScheduler.activeClock();
+		m_startTime = m_clock.getTimestamp();
 	}
 
 	@Override
@@ -31,14 +38,18 @@ public class WaitCommand extends SendableCommandBase {
 
 	}
 
-	@Override
-	public void end(boolean interrupted) {
-		m_timer.stop();
+	/**
+	 * Returns the time since this command was initialized.
+	 *
+	 * @return the elapsed time, in seconds
+	 */
+	protected double getElapsedTime() {
+		return m_clock.getTimestamp() - m_startTime;
 	}
 
 	@Override
 	public boolean isFinished() {
-		return m_timer.hasPeriodPassed(m_duration);
+		return getElapsedTime() >= m_duration;
 	}
 
 	@Override
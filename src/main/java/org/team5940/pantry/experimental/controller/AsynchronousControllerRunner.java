@@ -11,14 +11,17 @@ import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.DoubleConsumer;
 import java.util.function.DoubleSupplier;
 
-import edu.wpi.first.wpilibj.Notifier;
+import org.team5940.pantry.lib.time.PeriodicExecutor;
 
 /**
- * A runner that runs a controller asynchronously in a {@link Notifier}, allowing the user to pass
- * in functions for the measurement, reference, and output.  Said functions should be thread-safe.
+ * A runner that runs a controller asynchronously on the shared {@link ControllerExecutor}, allowing
+ * the user to pass in functions for the measurement, reference, and output.  Said functions should
+ * be thread-safe.  A different {@link PeriodicExecutor} can be supplied, e.g. to run the controller
+ * in simulated time.  The controller is only scheduled while the runner is enabled.
  */
 public class AsynchronousControllerRunner {
-	private final Notifier m_notifier = new Notifier(this::run);
+	private final PeriodicExecutor.Task m_task;
+	private final RunTimer m_timer;
 	private final Controller m_controller;
 	private final DoubleSupplier m_referenceSource;
 	private final DoubleSupplier m_measurementSource;
@@ -43,11 +46,29 @@ public class AsynchronousControllerRunner {
 			DoubleSupplier referenceSource,
 			DoubleSupplier measurementSource,
 			DoubleConsumer controllerOutput) {
+		this(ControllerExecutor.getInstance(), controller, referenceSource, measurementSource, controllerOutput);
+	}
+
+	/**
+	 * Creates a new ControllerRunner that runs on the given executor.
+	 *
+	 * @param executor          The executor to run the controller on.
+	 * @param controller        The controller to run.
+	 * @param referenceSource   A method providing the reference value for the controller.
+	 * @param measurementSource A method providing the process variable value for the controller.
+	 * @param controllerOutput  A method that uses the output of the controller.
+	 */
+	public AsynchronousControllerRunner(PeriodicExecutor executor,
+			Controller controller,
+			DoubleSupplier referenceSource,
+			DoubleSupplier measurementSource,
+			DoubleConsumer controllerOutput) {
+		m_task = executor.create(this::run);
+		m_timer = new RunTimer(executor.getClock(), controller.getPeriod());
 		m_controller = controller;
 		m_referenceSource = referenceSource;
 		m_measurementSource = measurementSource;
 		m_controllerOutput = controllerOutput;
-		m_notifier.startPeriodic(m_controller.getPeriod());
 	}
 
 	/**
@@ -56,6 +77,10 @@ public class AsynchronousControllerRunner {
 	public void enable() {
 		m_thisMutex.lock();
 		try {
+			if (!m_enabled) {
+				m_timer.restart();
+				m_task.startPeriodic(m_controller.getPeriod());
+			}
 			m_enabled = true;
 		} finally {
 			m_thisMutex.unlock();
@@ -75,6 +100,7 @@ public class AsynchronousControllerRunner {
 			m_thisMutex.lock();
 			try {
 				m_enabled = false;
+				m_task.stop();
 			} finally {
 				m_thisMutex.unlock();
 			}
@@ -97,6 +123,31 @@ public class AsynchronousControllerRunner {
 		}
 	}
 
+	/**
+	 * Starts keeping timing statistics for this runner, if it isn't already.
+	 *
+	 * @return The statistics.
+	 */
+	public ControllerStatistics enableStatistics() {
+		return m_timer.enableStatistics();
+	}
+
+	/**
+	 * Stops keeping timing statistics.
+	 */
+	public void disableStatistics() {
+		m_timer.disableStatistics();
+	}
+
+	/**
+	 * Returns the timing statistics of this runner.
+	 *
+	 * @return The statistics, or null if they are not enabled.
+	 */
+	public ControllerStatistics getStatistics() {
+		return m_timer.getStatistics();
+	}
+
 	private void run() {
 		// Ensures m_enabled check and m_controllerOutput() call occur atomically
 		m_outputMutex.lock();
@@ -107,8 +158,10 @@ public class AsynchronousControllerRunner {
 					// Don't block other ControllerRunner operations on output
 					m_thisMutex.unlock();
 
+					final double dt = m_timer.begin();
 					m_controllerOutput.accept(m_controller.calculate(
-							m_referenceSource.getAsDouble(), m_measurementSource.getAsDouble()));
+							m_referenceSource.getAsDouble(), m_measurementSource.getAsDouble(), dt));
+					m_timer.end();
 				}
 			} finally {
 				if (m_thisMutex.isHeldByCurrentThread()) {
@@ -40,4 +40,18 @@ public abstract class Controller {
 	 * @return The controller output.
 	 */
 	public abstract double calculate(double reference, double measurement);
+
+	/**
+	 * Calculate the output based on the provided reference and measurement values and the measured
+	 * time since the previous calculation. Controllers that don't depend on time ignore it, which
+	 * is what this default does.
+	 *
+	 * @param reference   The value of the reference.
+	 * @param measurement The value of the process variable.
+	 * @param dt          The time since the previous calculation, in seconds.
+	 * @return The controller output.
+	 */
+	public double calculate(double reference, double measurement, double dt) {
+		return calculate(reference, measurement);
+	}
 }
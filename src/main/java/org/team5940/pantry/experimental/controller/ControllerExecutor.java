@@ -0,0 +1,253 @@
+package org.team5940.pantry.experimental.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.team5940.pantry.lib.time.Clock;
+import org.team5940.pantry.lib.time.PeriodicExecutor;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Threads;
+
+/**
+ * Runs many periodic controllers on a few shared threads, instead of one {@link
+ * edu.wpi.first.wpilibj.Notifier} thread each.
+ *
+ * <p>Each time a task is started, it is put on the worker thread with the least load (the sum of
+ * the rates of the tasks running on it), and keeps its own period. Tasks are placed when started
+ * rather than when created, since controllers are usually all created at robot init, before any
+ * of them is running. Tasks on the same thread are started
+ * at staggered phases so their runs spread across the period instead of bunching up. A stopped task
+ * is taken off its thread entirely, so disabled controllers cost nothing. If a run finishes after
+ * one or more of the task's later deadlines have passed, those runs are skipped rather than run
+ * back to back to catch up, and counted in {@link #getSkippedCount()}.
+ *
+ * <p>Workers sleep until the next deadline with {@link LockSupport#parkNanos(long)} and, where the
+ * platform allows it, run at real-time priority. Task bodies must not block. A task whose body
+ * throws is reported to the driver station and stopped; the other tasks on its thread keep running.
+ */
+public class ControllerExecutor implements PeriodicExecutor, AutoCloseable {
+	private static final int kDefaultPriority = 40;
+	// Fractional part of the golden ratio; successive multiples of it are evenly spread over [0, 1)
+	private static final double kPhaseStep = 0.6180339887498949;
+
+	private static ControllerExecutor instance;
+
+	/**
+	 * Returns the shared executor, with one worker thread, creating it if needed.
+	 *
+	 * @return the shared executor
+	 */
+	public static synchronized ControllerExecutor getInstance() {
+		if (instance == null) {
+			instance = new ControllerExecutor(1, kDefaultPriority);
+		}
+		return instance;
+	}
+
+	private final Worker[] m_workers;
+	private final Clock m_clock = Clock.fpga();
+	private final AtomicLong m_skipped = new AtomicLong();
+
+	/**
+	 * Creates a new executor and starts its worker threads.
+	 *
+	 * @param threads  The number of worker threads.
+	 * @param priority The real-time priority of the workers, from 1 to 99, or 0 to leave them at
+	 *                 normal priority.
+	 */
+	public ControllerExecutor(int threads, int priority) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("A controller executor needs at least one thread");
+		}
+		m_workers = new Worker[threads];
+		for (int i = 0; i < threads; i++) {
+			m_workers[i] = new Worker("ControllerExecutor-" + i, priority);
+			m_workers[i].m_thread.start();
+		}
+	}
+
+	@Override
+	public Task create(Runnable body) {
+		return new ExecutorTask(body);
+	}
+
+	private synchronized void start(ExecutorTask task, long periodNanos) {
+		stop(task);
+		Worker leastLoaded = m_workers[0];
+		for (Worker worker : m_workers) {
+			if (worker.m_load < leastLoaded.m_load) {
+				leastLoaded = worker;
+			}
+		}
+		task.m_rate = 1e9 / periodNanos;
+		leastLoaded.m_load += task.m_rate;
+		task.m_worker = leastLoaded;
+		leastLoaded.start(task, periodNanos);
+	}
+
+	private synchronized void stop(ExecutorTask task) {
+		final Worker worker = task.m_worker;
+		if (worker != null) {
+			worker.stop(task);
+			worker.m_load -= task.m_rate;
+			task.m_worker = null;
+		}
+	}
+
+	@Override
+	public Clock getClock() {
+		return m_clock;
+	}
+
+	/**
+	 * Returns how many runs, across all tasks, were skipped because an earlier run overran them.
+	 *
+	 * @return the number of skipped runs
+	 */
+	public long getSkippedCount() {
+		return m_skipped.get();
+	}
+
+	/**
+	 * Stops every worker thread. Tasks stop running, and no new ones should be created.
+	 */
+	@Override
+	public void close() {
+		for (Worker worker : m_workers) {
+			worker.shutdown();
+		}
+	}
+
+	private final class ExecutorTask implements Task {
+		final Runnable m_body;
+		// The worker running the task, or null if stopped, and the rate it adds to that worker's
+		// load; written with the executor's monitor held
+		volatile Worker m_worker;
+		double m_rate;
+		// Guarded by m_worker
+		long m_periodNanos;
+		long m_nextRun;
+		boolean m_running;
+
+		ExecutorTask(Runnable body) {
+			m_body = body;
+		}
+
+		@Override
+		public void startPeriodic(double period) {
+			if (period <= 0) {
+				throw new IllegalArgumentException("Period must be positive");
+			}
+			start(this, (long) (period * 1e9));
+		}
+
+		@Override
+		public void stop() {
+			ControllerExecutor.this.stop(this);
+		}
+
+		@Override
+		public void close() {
+			stop();
+		}
+	}
+
+	private final class Worker implements Runnable {
+		final Thread m_thread;
+		final int m_priority;
+		// The running tasks; guarded by this
+		final List<ExecutorTask> m_active = new ArrayList<>();
+		// Sum of the rates of the running tasks, in runs per second; guarded by the executor's
+		// monitor
+		double m_load;
+		long m_started;
+		volatile boolean m_shutdown;
+
+		Worker(String name, int priority) {
+			m_priority = priority;
+			m_thread = new Thread(this, name);
+			m_thread.setDaemon(true);
+			m_thread.setPriority(Thread.MAX_PRIORITY);
+		}
+
+		synchronized void start(ExecutorTask task, long periodNanos) {
+			task.m_periodNanos = periodNanos;
+			// Stagger the first run by a golden-ratio fraction of the period
+			double phase = (m_started++ * kPhaseStep) % 1.0;
+			task.m_nextRun = System.nanoTime() + periodNanos + (long) (phase * periodNanos);
+			task.m_running = true;
+			m_active.add(task);
+			LockSupport.unpark(m_thread);
+		}
+
+		synchronized void stop(ExecutorTask task) {
+			if (task.m_running) {
+				task.m_running = false;
+				m_active.remove(task);
+			}
+		}
+
+		void shutdown() {
+			m_shutdown = true;
+			LockSupport.unpark(m_thread);
+		}
+
+		@Override
+		public void run() {
+			if (m_priority > 0) {
+				Threads.setCurrentThreadPriority(true, m_priority);
+			}
+			while (!m_shutdown) {
+				ExecutorTask next = null;
+				long nextRun = Long.MAX_VALUE;
+				synchronized (this) {
+					for (int i = 0; i < m_active.size(); i++) {
+						ExecutorTask task = m_active.get(i);
+						if (next == null || task.m_nextRun - nextRun < 0) {
+							next = task;
+							nextRun = task.m_nextRun;
+						}
+					}
+				}
+				if (next == null) {
+					LockSupport.park(this);
+					continue;
+				}
+				long wait = nextRun - System.nanoTime();
+				if (wait > 0) {
+					// Woken early if a task is started, so look again either way
+					LockSupport.parkNanos(this, wait);
+					continue;
+				}
+
+				try {
+					next.m_body.run();
+				} catch (Throwable throwable) {
+					// One broken controller mustn't take down every other one on this thread
+					DriverStation.reportError("Unhandled exception in controller task: " + throwable.toString(),
+							throwable.getStackTrace());
+					ControllerExecutor.this.stop(next);
+					continue;
+				}
+
+				synchronized (this) {
+					// Stopped, restarted or moved to another worker while running; its schedule is no
+					// longer ours to advance
+					if (next.m_worker != this || !next.m_running || next.m_nextRun != nextRun) {
+						continue;
+					}
+					long period = next.m_periodNanos;
+					long late = System.nanoTime() - (nextRun + period);
+					long skip = late >= 0 ? late / period + 1 : 0;
+					if (skip > 0) {
+						m_skipped.addAndGet(skip);
+					}
+					next.m_nextRun = nextRun + (skip + 1) * period;
+				}
+			}
+		}
+	}
+}
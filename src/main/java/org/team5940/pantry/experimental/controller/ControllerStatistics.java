@@ -0,0 +1,136 @@
+package org.team5940.pantry.experimental.controller;
+
+import org.team5940.pantry.lib.Histogram;
+import org.team5940.pantry.lib.LoopTiming;
+
+import edu.wpi.first.wpilibj.SendableBase;
+import edu.wpi.first.wpilibj.smartdashboard.SendableBuilder;
+
+/**
+ * Timing statistics for a controller runner: how long each run took, from reading the reference
+ * and measurement to writing the output, how evenly runs were spaced, and how often they overran
+ * the controller's period. Built on {@link LoopTiming}, so recording never allocates.
+ *
+ * <p>Runners only keep statistics after {@code enableStatistics()} is called; until then the cost
+ * is one null check per run. Statistics are written by the thread running the controller; other
+ * threads may read them through {@link #getSnapshot()} or the dashboard, and may occasionally see a
+ * run half-recorded.
+ */
+public class ControllerStatistics extends SendableBase {
+	private final LoopTiming m_timing;
+	private long m_lastStart;
+	private boolean m_started;
+
+	/**
+	 * Creates a new set of controller statistics.
+	 *
+	 * @param period The nominal period of the controller, in seconds.
+	 */
+	public ControllerStatistics(double period) {
+		super(false);
+		m_timing = new LoopTiming(period);
+	}
+
+	/**
+	 * Records one run of the controller.
+	 *
+	 * @param startNanos The {@link System#nanoTime()} when the run started.
+	 * @param endNanos   The {@link System#nanoTime()} when the run finished.
+	 */
+	public void record(long startNanos, long endNanos) {
+		double dt = m_started ? (startNanos - m_lastStart) * 1e-9 : Double.NaN;
+		m_lastStart = startNanos;
+		m_started = true;
+		m_timing.record(dt, (endNanos - startNanos) * 1e-9);
+	}
+
+	/**
+	 * Forgets when the controller last ran, so the gap while it was disabled isn't counted as a
+	 * missed period.
+	 */
+	public void restart() {
+		m_started = false;
+	}
+
+	/**
+	 * Clears all statistics.
+	 */
+	public void reset() {
+		m_timing.reset();
+	}
+
+	/**
+	 * Returns the full statistics, including histograms of the period, jitter and execution time.
+	 *
+	 * @return the underlying loop timing
+	 */
+	public LoopTiming getTiming() {
+		return m_timing;
+	}
+
+	/**
+	 * Returns a copy of the summary statistics as of now.
+	 *
+	 * @return the snapshot
+	 */
+	public Snapshot getSnapshot() {
+		return new Snapshot(m_timing);
+	}
+
+	@Override
+	public void initSendable(SendableBuilder builder) {
+		builder.setSmartDashboardType("ControllerStatistics");
+		builder.addDoubleProperty("Execution mean ms",
+				() -> m_timing.getExecutionHistogram().getMean() * 1e3, null);
+		builder.addDoubleProperty("Execution p99 ms",
+				() -> m_timing.getExecutionHistogram().getPercentile(0.99) * 1e3, null);
+		builder.addDoubleProperty("Execution max ms",
+				() -> m_timing.getExecutionHistogram().getMax() * 1e3, null);
+		builder.addDoubleProperty("Period mean ms",
+				() -> m_timing.getPeriodHistogram().getMean() * 1e3, null);
+		builder.addDoubleProperty("Jitter p99 ms",
+				() -> m_timing.getJitterHistogram().getPercentile(0.99) * 1e3, null);
+		builder.addDoubleProperty("Overruns", m_timing::getOverrunCount, null);
+		builder.addDoubleProperty("Missed", m_timing::getMissedCount, null);
+		builder.addBooleanProperty("Reset", () -> false, reset -> {
+			if (reset) {
+				reset();
+			}
+		});
+	}
+
+	@Override
+	public String toString() {
+		return m_timing.toString();
+	}
+
+	/**
+	 * Summary statistics of a controller at one point in time. All times are in seconds.
+	 */
+	public static final class Snapshot {
+		public final long runs;
+		public final double meanExecutionTime;
+		public final double p99ExecutionTime;
+		// The longest any run has taken since the statistics were last reset
+		public final double maxExecutionTime;
+		public final double meanPeriod;
+		public final double p99Jitter;
+		public final double maxJitter;
+		public final long overruns;
+		public final long missed;
+
+		Snapshot(LoopTiming timing) {
+			Histogram execution = timing.getExecutionHistogram();
+			Histogram jitter = timing.getJitterHistogram();
+			runs = execution.getCount();
+			meanExecutionTime = execution.getMean();
+			p99ExecutionTime = execution.getPercentile(0.99);
+			maxExecutionTime = execution.getMax();
+			meanPeriod = timing.getPeriodHistogram().getMean();
+			p99Jitter = jitter.getPercentile(0.99);
+			maxJitter = jitter.getMax();
+			overruns = timing.getOverrunCount();
+			missed = timing.getMissedCount();
+		}
+	}
+}
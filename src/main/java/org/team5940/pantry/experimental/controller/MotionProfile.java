@@ -0,0 +1,302 @@
+package org.team5940.pantry.experimental.controller;
+
+/**
+ * A one-dimensional motion profile from a starting position and velocity to rest at a goal,
+ * limited in velocity, acceleration and, optionally, jerk.
+ *
+ * <p>With an infinite jerk limit the profile is trapezoidal; otherwise it is an S-curve, whose
+ * acceleration ramps instead of stepping. {@link #generate(double, double, double)} solves the
+ * profile once and stores it as a short list of phases, each with constant jerk, so {@link
+ * #sample(double)} only has to find the phase and evaluate a cubic. A starting velocity away from
+ * the goal, or too fast to stop before it, is handled by first braking to rest and then coming
+ * back. Starting velocities above the velocity limit are brought down to it. S-curves assume the
+ * profile starts with zero acceleration.
+ *
+ * <p>Neither generating nor sampling allocates. A profile is not thread-safe.
+ */
+public class MotionProfile {
+	// Brake to rest, then up to three phases each to speed up and slow down, plus a cruise
+	private static final int kMaxPhases = 10;
+	private static final int kBisectionIterations = 64;
+
+	private double m_maxVelocity;
+	private double m_maxAcceleration;
+	private double m_maxJerk;
+
+	// Phase k starts at m_startTime[k] with the given position, velocity and acceleration, and has
+	// constant jerk until the next phase starts
+	private final double[] m_startTime = new double[kMaxPhases + 1];
+	private final double[] m_startPosition = new double[kMaxPhases];
+	private final double[] m_startVelocity = new double[kMaxPhases];
+	private final double[] m_startAcceleration = new double[kMaxPhases];
+	private final double[] m_jerk = new double[kMaxPhases];
+	private int m_phases;
+	private double m_goal;
+
+	// State at the end of the phases added so far, while generating
+	private double m_endPosition;
+	private double m_endVelocity;
+
+	// Results of the latest sample
+	private int m_phase;
+	private double m_position;
+	private double m_velocity;
+	private double m_acceleration;
+
+	/**
+	 * Creates a trapezoidal profile.
+	 *
+	 * @param maxVelocity     The maximum speed.
+	 * @param maxAcceleration The maximum magnitude of acceleration.
+	 */
+	public MotionProfile(double maxVelocity, double maxAcceleration) {
+		this(maxVelocity, maxAcceleration, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Creates an S-curve profile.
+	 *
+	 * @param maxVelocity     The maximum speed.
+	 * @param maxAcceleration The maximum magnitude of acceleration.
+	 * @param maxJerk         The maximum magnitude of jerk, or infinity for a trapezoidal profile.
+	 */
+	public MotionProfile(double maxVelocity, double maxAcceleration, double maxJerk) {
+		setConstraints(maxVelocity, maxAcceleration, maxJerk);
+		generate(0.0, 0.0, 0.0);
+	}
+
+	/**
+	 * Sets the limits used by the next {@link #generate(double, double, double)}.
+	 *
+	 * @param maxVelocity     The maximum speed.
+	 * @param maxAcceleration The maximum magnitude of acceleration.
+	 * @param maxJerk         The maximum magnitude of jerk, or infinity for a trapezoidal profile.
+	 */
+	public void setConstraints(double maxVelocity, double maxAcceleration, double maxJerk) {
+		checkConstraints(maxVelocity, maxAcceleration, maxJerk);
+		m_maxVelocity = maxVelocity;
+		m_maxAcceleration = maxAcceleration;
+		m_maxJerk = maxJerk;
+	}
+
+	/**
+	 * Throws if the limits can't be given to {@link #setConstraints(double, double, double)}.
+	 */
+	static void checkConstraints(double maxVelocity, double maxAcceleration, double maxJerk) {
+		if (!(maxVelocity > 0) || !(maxAcceleration > 0) || !(maxJerk > 0)) {
+			throw new IllegalArgumentException("Profile constraints must be positive");
+		}
+	}
+
+	public double getMaxVelocity() {
+		return m_maxVelocity;
+	}
+
+	public double getMaxAcceleration() {
+		return m_maxAcceleration;
+	}
+
+	public double getMaxJerk() {
+		return m_maxJerk;
+	}
+
+	/**
+	 * Solves a new profile, starting at time zero.
+	 *
+	 * @param position The starting position.
+	 * @param velocity The starting velocity.
+	 * @param goal     The position to come to rest at.
+	 */
+	public void generate(double position, double velocity, double goal) {
+		m_phases = 0;
+		m_startTime[0] = 0.0;
+		m_endPosition = position;
+		m_endVelocity = velocity;
+		m_goal = goal;
+		m_phase = 0;
+
+		// At most two passes: brake to rest if need be, then go
+		while (true) {
+			final double direction = goal >= m_endPosition ? 1.0 : -1.0;
+			final double distance = Math.abs(goal - m_endPosition);
+			// Speed toward the goal; negative if moving away from it
+			final double speed = direction * m_endVelocity;
+
+			if (speed < 0 || changeDistance(speed, 0.0) > distance) {
+				// Moving away from the goal, or too fast to stop short of it
+				addVelocityChange(direction, speed, 0.0);
+				continue;
+			}
+
+			double peak;
+			if (changeDistance(speed, m_maxVelocity) <= distance) {
+				peak = m_maxVelocity;
+			} else if (speed > m_maxVelocity) {
+				// Slowing to the limit first would overshoot, so stop short and start over from rest
+				addVelocityChange(direction, speed, 0.0);
+				continue;
+			} else {
+				// The largest peak whose profile fits; the distance only grows with the peak
+				double low = speed;
+				double high = m_maxVelocity;
+				for (int i = 0; i < kBisectionIterations; i++) {
+					double mid = 0.5 * (low + high);
+					if (changeDistance(speed, mid) <= distance) {
+						low = mid;
+					} else {
+						high = mid;
+					}
+				}
+				peak = low;
+			}
+
+			final double cruise = distance - changeDistance(speed, peak);
+			addVelocityChange(direction, speed, peak);
+			if (peak > 0 && cruise > 0) {
+				addPhase(cruise / peak, 0.0, 0.0);
+			}
+			addVelocityChange(direction, peak, 0.0);
+			return;
+		}
+	}
+
+	/**
+	 * Returns the duration of the profile.
+	 */
+	public double getTotalTime() {
+		return m_startTime[m_phases];
+	}
+
+	/**
+	 * Returns the position the profile ends at.
+	 */
+	public double getGoal() {
+		return m_goal;
+	}
+
+	/**
+	 * Returns whether the profile has ended by the given time.
+	 */
+	public boolean isFinished(double time) {
+		return time >= m_startTime[m_phases];
+	}
+
+	/**
+	 * Evaluates the profile at a time, for {@link #getPosition()}, {@link #getVelocity()} and {@link
+	 * #getAcceleration()}. Times before the start give the starting state, and times after the end
+	 * the goal at rest. Sampling at non-decreasing times, as a controller does, finds the phase
+	 * without searching.
+	 *
+	 * @param time The time since the profile started, in seconds.
+	 */
+	public void sample(double time) {
+		if (m_phases == 0 || time >= m_startTime[m_phases]) {
+			m_phase = m_phases;
+			m_position = m_goal;
+			m_velocity = 0.0;
+			m_acceleration = 0.0;
+			return;
+		}
+
+		int phase = m_phase;
+		if (phase >= m_phases || time < m_startTime[phase]) {
+			phase = 0;
+		}
+		while (time >= m_startTime[phase + 1]) {
+			phase++;
+		}
+		m_phase = phase;
+
+		final double t = Math.max(0.0, time - m_startTime[phase]);
+		final double a = m_startAcceleration[phase];
+		final double j = m_jerk[phase];
+		m_position = m_startPosition[phase] + t * (m_startVelocity[phase] + t * (a / 2 + t * j / 6));
+		m_velocity = m_startVelocity[phase] + t * (a + t * j / 2);
+		m_acceleration = a + t * j;
+	}
+
+	/**
+	 * Returns the position at the latest sample.
+	 */
+	public double getPosition() {
+		return m_position;
+	}
+
+	/**
+	 * Returns the velocity at the latest sample.
+	 */
+	public double getVelocity() {
+		return m_velocity;
+	}
+
+	/**
+	 * Returns the acceleration at the latest sample.
+	 */
+	public double getAcceleration() {
+		return m_acceleration;
+	}
+
+	/**
+	 * Time to change speed between two values, starting and ending with zero acceleration. Ramps
+	 * the acceleration up, holds it at the limit if there is time, and ramps it back down.
+	 */
+	private double changeTime(double from, double to) {
+		final double change = Math.abs(to - from);
+		final double rampTime = m_maxAcceleration / m_maxJerk;
+		if (change >= m_maxAcceleration * rampTime) {
+			return rampTime + change / m_maxAcceleration;
+		}
+		return 2 * Math.sqrt(change / m_maxJerk);
+	}
+
+	/**
+	 * Distance covered changing speed from the given speed to a peak and then down to rest. The
+	 * acceleration of each change is symmetric in time, so its mean speed is the mean of its ends.
+	 */
+	private double changeDistance(double speed, double peak) {
+		return (speed + peak) / 2 * changeTime(speed, peak) + peak / 2 * changeTime(peak, 0.0);
+	}
+
+	private void addVelocityChange(double direction, double from, double to) {
+		final double change = Math.abs(to - from);
+		if (change == 0) {
+			return;
+		}
+		final double sign = to > from ? direction : -direction;
+		double rampTime = m_maxAcceleration / m_maxJerk;
+		double holdTime;
+		if (change >= m_maxAcceleration * rampTime) {
+			holdTime = change / m_maxAcceleration - rampTime;
+		} else {
+			rampTime = Math.sqrt(change / m_maxJerk);
+			holdTime = 0.0;
+		}
+
+		if (Double.isInfinite(m_maxJerk)) {
+			addPhase(holdTime, sign * m_maxAcceleration, 0.0);
+		} else {
+			final double peakAcceleration = sign * m_maxJerk * rampTime;
+			addPhase(rampTime, 0.0, sign * m_maxJerk);
+			addPhase(holdTime, peakAcceleration, 0.0);
+			addPhase(rampTime, peakAcceleration, -sign * m_maxJerk);
+		}
+		// Land exactly on the target speed rather than wherever rounding left it
+		m_endVelocity = direction * to;
+	}
+
+	private void addPhase(double duration, double acceleration, double jerk) {
+		if (!(duration > 0)) {
+			return;
+		}
+		final int k = m_phases++;
+		m_startPosition[k] = m_endPosition;
+		m_startVelocity[k] = m_endVelocity;
+		m_startAcceleration[k] = acceleration;
+		m_jerk[k] = jerk;
+		m_startTime[k + 1] = m_startTime[k] + duration;
+
+		final double t = duration;
+		m_endPosition += t * (m_endVelocity + t * (acceleration / 2 + t * jerk / 6));
+		m_endVelocity += t * (acceleration + t * jerk / 2);
+	}
+}
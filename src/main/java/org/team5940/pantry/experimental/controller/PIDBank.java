@@ -0,0 +1,501 @@
+package org.team5940.pantry.experimental.controller;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.team5940.pantry.lib.time.PeriodicExecutor;
+
+/**
+ * A bank of PID controllers that share one period and are updated together, such as the steering
+ * or drive loops of a swerve drive.
+ *
+ * <p>Gains and state for every controller are kept in primitive arrays, one element per
+ * controller, and {@link #update(double)} steps all of them in a single loop: one read of the
+ * references and measurements, one pass of arithmetic and one write of the outputs, instead of a
+ * {@link PIDController} and a runner per mechanism. Each step is {@link PIDCore#step} with the
+ * default {@link PIDCore.IntegralMode#kClamp} integral.
+ *
+ * <p>When enabled, the bank runs itself on a {@link PeriodicExecutor}, by default the shared
+ * {@link ControllerExecutor}, and passes each step the measured time since the previous one. It
+ * can also be stepped directly, e.g. from a subsystem's periodic method, by calling {@link
+ * #update()} while disabled. The bank never allocates once constructed, except in setters.
+ *
+ * <p>Like {@link PIDController}, the bank takes no locks to update. Gains, ranges and tolerances
+ * live in an immutable configuration that setters replace atomically, so each update sees one
+ * consistent set of them. The error history and outputs are written only by the thread stepping
+ * the bank; other threads may read them, and may see one update's results partly written. {@link
+ * #reset()} takes effect no later than the next update.
+ */
+@SuppressWarnings({"MemberName", "PMD.TooManyFields"})
+public class PIDBank {
+	/**
+	 * Where the bank reads its references and measurements and writes its outputs. Called from the
+	 * thread stepping the bank, with arrays owned by the bank that must not be kept.
+	 */
+	public interface IO {
+		/**
+		 * Fills in the reference and the measurement of every controller.
+		 */
+		void read(double[] references, double[] measurements);
+
+		/**
+		 * Applies the output of every controller.
+		 */
+		void write(double[] outputs);
+	}
+
+	/**
+	 * Everything about the controllers that is set rather than computed, one element per
+	 * controller. Never modified once published; setters publish a changed copy.
+	 */
+	@SuppressWarnings("MemberName")
+	private static final class Config {
+		final double[] m_Kp;
+		final double[] m_Ki;
+		final double[] m_Kd;
+		final double[] m_Kf;
+		final double[] m_minimumOutput;
+		final double[] m_maximumOutput;
+		// Zero for controllers whose input doesn't wrap around
+		final double[] m_inputRange;
+		final double[] m_deadband;
+		final double[] m_tolerance;
+
+		Config(int size) {
+			m_Kp = new double[size];
+			m_Ki = new double[size];
+			m_Kd = new double[size];
+			m_Kf = new double[size];
+			m_minimumOutput = new double[size];
+			m_maximumOutput = new double[size];
+			m_inputRange = new double[size];
+			m_deadband = new double[size];
+			m_tolerance = new double[size];
+
+			Arrays.fill(m_minimumOutput, -1.0);
+			Arrays.fill(m_maximumOutput, 1.0);
+			Arrays.fill(m_tolerance, 0.05);
+		}
+
+		Config(Config other) {
+			m_Kp = other.m_Kp.clone();
+			m_Ki = other.m_Ki.clone();
+			m_Kd = other.m_Kd.clone();
+			m_Kf = other.m_Kf.clone();
+			m_minimumOutput = other.m_minimumOutput.clone();
+			m_maximumOutput = other.m_maximumOutput.clone();
+			m_inputRange = other.m_inputRange.clone();
+			m_deadband = other.m_deadband.clone();
+			m_tolerance = other.m_tolerance.clone();
+		}
+	}
+
+	private final int m_size;
+	private final double m_period;
+	private final IO m_io;
+	private final PeriodicExecutor.Task m_task;
+	private final RunTimer m_timer;
+
+	private final AtomicReference<Config> m_config;
+
+	// Written only by the thread stepping the bank
+	private final double[] m_reference;
+	private final double[] m_measurement;
+	// The error of each controller, then the integral of its error, as kept by PIDCore.step()
+	private final double[] m_state;
+	private final double[] m_deltaError;
+	private final double[] m_output;
+
+	// Set by reset() for the next update to clear, along with m_anyResetPending
+	private final AtomicIntegerArray m_resetPending;
+	private final AtomicBoolean m_anyResetPending = new AtomicBoolean();
+
+	private boolean m_enabled;
+
+	// Guards m_enabled
+	private final ReentrantLock m_thisMutex = new ReentrantLock();
+
+	// Ensures when disable() is called, its zero outputs aren't overwritten by an update that is
+	// already running at that time. Only enable() and disable() contend with a run.
+	private final ReentrantLock m_outputMutex = new ReentrantLock();
+
+	/**
+	 * Creates a new bank that runs on the shared {@link ControllerExecutor} when enabled.
+	 *
+	 * @param size   The number of controllers.
+	 * @param period The period between updates, in seconds.
+	 * @param io     Where to read references and measurements and write outputs.
+	 */
+	public PIDBank(int size, double period, IO io) {
+		this(ControllerExecutor.getInstance(), size, period, io);
+	}
+
+	/**
+	 * Creates a new bank that runs on the given executor when enabled.
+	 *
+	 * @param executor The executor to run the bank on.
+	 * @param size     The number of controllers.
+	 * @param period   The period between updates, in seconds.
+	 * @param io       Where to read references and measurements and write outputs.
+	 */
+	public PIDBank(PeriodicExecutor executor, int size, double period, IO io) {
+		if (size < 1) {
+			throw new IllegalArgumentException("A PID bank needs at least one controller");
+		}
+		if (period <= 0) {
+			throw new IllegalArgumentException("Period must be positive");
+		}
+		m_size = size;
+		m_period = period;
+		m_io = io;
+		m_task = executor.create(this::run);
+		m_timer = new RunTimer(executor.getClock(), period);
+
+		m_config = new AtomicReference<>(new Config(size));
+		m_reference = new double[size];
+		m_measurement = new double[size];
+		m_state = new double[2 * size];
+		m_deltaError = new double[size];
+		m_output = new double[size];
+		m_resetPending = new AtomicIntegerArray(size);
+	}
+
+	private void update(Consumer<Config> change) {
+		m_config.updateAndGet(config -> {
+			Config changed = new Config(config);
+			change.accept(changed);
+			return changed;
+		});
+	}
+
+	/**
+	 * Returns the number of controllers in the bank.
+	 */
+	public int size() {
+		return m_size;
+	}
+
+	/**
+	 * Returns the nominal period between updates, in seconds.
+	 */
+	public double getPeriod() {
+		return m_period;
+	}
+
+	/**
+	 * Sets the proportional, integral, and differential coefficients of one controller.
+	 *
+	 * @param index The controller.
+	 * @param Kp    Proportional coefficient
+	 * @param Ki    Integral coefficient
+	 * @param Kd    Differential coefficient
+	 */
+	@SuppressWarnings("ParameterName")
+	public void setPID(int index, double Kp, double Ki, double Kd) {
+		update(config -> {
+			config.m_Kp[index] = Kp;
+			config.m_Ki[index] = Ki;
+			config.m_Kd[index] = Kd;
+		});
+	}
+
+	/**
+	 * Sets the coefficients of every controller.
+	 */
+	@SuppressWarnings("ParameterName")
+	public void setPID(double Kp, double Ki, double Kd) {
+		update(config -> {
+			Arrays.fill(config.m_Kp, Kp);
+			Arrays.fill(config.m_Ki, Ki);
+			Arrays.fill(config.m_Kd, Kd);
+		});
+	}
+
+	/**
+	 * Sets the feed forward coefficient of one controller, which multiplies its reference.
+	 */
+	@SuppressWarnings("ParameterName")
+	public void setF(int index, double Kf) {
+		update(config -> config.m_Kf[index] = Kf);
+	}
+
+	public double getP(int index) {
+		return m_config.get().m_Kp[index];
+	}
+
+	public double getI(int index) {
+		return m_config.get().m_Ki[index];
+	}
+
+	public double getD(int index) {
+		return m_config.get().m_Kd[index];
+	}
+
+	public double getF(int index) {
+		return m_config.get().m_Kf[index];
+	}
+
+	/**
+	 * Sets the minimum and maximum output of one controller.
+	 */
+	public void setOutputRange(int index, double minimumOutput, double maximumOutput) {
+		update(config -> {
+			config.m_minimumOutput[index] = minimumOutput;
+			config.m_maximumOutput[index] = maximumOutput;
+		});
+	}
+
+	/**
+	 * Sets the minimum and maximum output of every controller.
+	 */
+	public void setOutputRange(double minimumOutput, double maximumOutput) {
+		update(config -> {
+			Arrays.fill(config.m_minimumOutput, minimumOutput);
+			Arrays.fill(config.m_maximumOutput, maximumOutput);
+		});
+	}
+
+	/**
+	 * Makes one controller's input wrap around, e.g. for an absolute encoder, so the error always
+	 * takes the shorter way around.
+	 *
+	 * @param index      The controller.
+	 * @param inputRange The difference between the largest and smallest input, or zero for an input
+	 *                   that doesn't wrap.
+	 */
+	public void setContinuous(int index, double inputRange) {
+		update(config -> config.m_inputRange[index] = inputRange);
+	}
+
+	/**
+	 * Makes every controller's input wrap around over the given range, or zero for none.
+	 */
+	public void setContinuous(double inputRange) {
+		update(config -> Arrays.fill(config.m_inputRange, inputRange));
+	}
+
+	/**
+	 * Sets the error below which one controller's proportional term is zero.
+	 */
+	public void setDeadband(int index, double deadband) {
+		update(config -> config.m_deadband[index] = deadband);
+	}
+
+	/**
+	 * Sets the absolute error within which one controller is considered at its reference.
+	 */
+	public void setAbsoluteTolerance(int index, double tolerance) {
+		update(config -> config.m_tolerance[index] = tolerance);
+	}
+
+	/**
+	 * Returns the reference one controller last read.
+	 */
+	public double getReference(int index) {
+		return m_reference[index];
+	}
+
+	/**
+	 * Returns the error of one controller as of the latest update.
+	 */
+	public double getError(int index) {
+		return m_state[2 * index];
+	}
+
+	/**
+	 * Returns the rate of change of one controller's error as of the latest update.
+	 */
+	public double getDeltaError(int index) {
+		return m_deltaError[index];
+	}
+
+	/**
+	 * Returns the output of one controller as of the latest update.
+	 */
+	public double getOutput(int index) {
+		return m_output[index];
+	}
+
+	/**
+	 * Returns whether one controller's error is within its tolerance.
+	 */
+	public boolean atReference(int index) {
+		return Math.abs(m_state[2 * index]) < m_config.get().m_tolerance[index];
+	}
+
+	/**
+	 * Returns whether every controller's error is within its tolerance.
+	 */
+	public boolean atReference() {
+		final double[] tolerance = m_config.get().m_tolerance;
+		for (int i = 0; i < m_size; i++) {
+			if (!(Math.abs(m_state[2 * i]) < tolerance[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Clears the error history and integral of every controller.
+	 */
+	public void reset() {
+		for (int i = 0; i < m_size; i++) {
+			m_resetPending.set(i, 1);
+		}
+		m_anyResetPending.set(true);
+	}
+
+	/**
+	 * Clears the error history and integral of one controller.
+	 */
+	public void reset(int index) {
+		m_resetPending.set(index, 1);
+		m_anyResetPending.set(true);
+	}
+
+	/**
+	 * Steps every controller, assuming the nominal period has passed.
+	 */
+	public void update() {
+		update(m_period);
+	}
+
+	/**
+	 * Reads every reference and measurement, steps every controller, and writes every output. Must
+	 * not be called from more than one thread at a time, nor while the bank is enabled.
+	 *
+	 * @param dt The time since the previous update, in seconds. The nominal period is used if this
+	 *           isn't positive.
+	 */
+	public void update(double dt) {
+		m_io.read(m_reference, m_measurement);
+		calculate(dt > 0 ? dt : m_period);
+		m_io.write(m_output);
+	}
+
+	@SuppressWarnings("LocalVariableName")
+	private void calculate(double dt) {
+		// One consistent snapshot of the configuration for the whole update
+		final Config config = m_config.get();
+		if (m_anyResetPending.getAndSet(false)) {
+			for (int i = 0; i < m_size; i++) {
+				if (m_resetPending.getAndSet(i, 0) != 0) {
+					m_state[2 * i] = 0.0;
+					m_state[2 * i + 1] = 0.0;
+				}
+			}
+		}
+
+		for (int i = 0; i < m_size; i++) {
+			final double prevError = m_state[2 * i];
+			m_output[i] = PIDCore.step(config.m_Kp[i], config.m_Ki[i], config.m_Kd[i], config.m_Kf[i],
+					config.m_minimumOutput[i], config.m_maximumOutput[i], config.m_inputRange[i],
+					config.m_deadband[i], PIDCore.IntegralMode.kClamp, m_reference[i], m_measurement[i],
+					0.0, dt, m_state, i);
+			m_deltaError[i] = (m_state[2 * i] - prevError) / dt;
+		}
+	}
+
+	/**
+	 * Begin running the bank on its executor.
+	 */
+	public void enable() {
+		m_thisMutex.lock();
+		try {
+			if (!m_enabled) {
+				m_timer.restart();
+				m_task.startPeriodic(m_period);
+			}
+			m_enabled = true;
+		} finally {
+			m_thisMutex.unlock();
+		}
+	}
+
+	/**
+	 * Stop running the bank.
+	 *
+	 * <p>This sets every output to zero before stopping.
+	 */
+	public void disable() {
+		// Ensures m_enabled modification and zero outputs occur atomically
+		m_outputMutex.lock();
+		try {
+			m_thisMutex.lock();
+			try {
+				m_enabled = false;
+				m_task.stop();
+			} finally {
+				m_thisMutex.unlock();
+			}
+
+			Arrays.fill(m_output, 0.0);
+			m_io.write(m_output);
+		} finally {
+			m_outputMutex.unlock();
+		}
+	}
+
+	/**
+	 * Returns whether the bank is running.
+	 */
+	public boolean isEnabled() {
+		m_thisMutex.lock();
+		try {
+			return m_enabled;
+		} finally {
+			m_thisMutex.unlock();
+		}
+	}
+
+	/**
+	 * Starts keeping timing statistics for this bank, if it isn't already.
+	 *
+	 * @return The statistics.
+	 */
+	public ControllerStatistics enableStatistics() {
+		return m_timer.enableStatistics();
+	}
+
+	/**
+	 * Stops keeping timing statistics.
+	 */
+	public void disableStatistics() {
+		m_timer.disableStatistics();
+	}
+
+	/**
+	 * Returns the timing statistics of this bank.
+	 *
+	 * @return The statistics, or null if they are not enabled.
+	 */
+	public ControllerStatistics getStatistics() {
+		return m_timer.getStatistics();
+	}
+
+	private void run() {
+		// Ensures m_enabled check and the update occur atomically
+		m_outputMutex.lock();
+		try {
+			m_thisMutex.lock();
+			try {
+				// Stopped between being scheduled and running; the outputs are already zeroed
+				if (!m_enabled) {
+					return;
+				}
+			} finally {
+				m_thisMutex.unlock();
+			}
+
+			update(m_timer.begin());
+			m_timer.end();
+		} finally {
+			m_outputMutex.unlock();
+		}
+	}
+}
@@ -7,7 +7,10 @@
 
 package org.team5940.pantry.experimental.controller;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
 
 import edu.wpi.first.hal.FRCNetComm.tResourceType;
 import edu.wpi.first.hal.HAL;
@@ -18,9 +21,18 @@ import edu.wpi.first.wpilibj.smartdashboard.SendableBuilder;
 /**
  * Class implements a PID Control Loop.
  *
- * <p>This feedback controller runs in discrete time, so time deltas are not used in the integral
- * and derivative calculations. Therefore, the sample rate affects the controller's behavior for a
- * given set of PID constants.
+ * <p>This feedback controller runs in discrete time. {@link #calculate()} and
+ * {@link #calculate(double, double)} assume the nominal period has passed between calculations;
+ * {@link #calculate(double, double, double)} takes the measured time instead, which keeps the
+ * integral and derivative terms right when the loop runs late. The math is done by a
+ * {@link PIDCore}.
+ *
+ * <p>The controller takes no locks. Gains, ranges and tolerances live in an immutable
+ * configuration that setters replace atomically, so {@link #calculate()} always sees one
+ * consistent set of them. The reference and measurement may be set from any thread. The error
+ * history is written only by {@link #calculate()}, which must not be called from more than one
+ * thread at a time; other threads may read it, and {@link #reset()} takes effect no later than
+ * the next calculation.
  */
 @SuppressWarnings("PMD.TooManyFields")
 public class PIDController extends Controller implements Sendable, AutoCloseable {
@@ -29,57 +41,114 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 
 	private static int instances;
 
-	// Factor for "proportional" control
-	@SuppressWarnings("MemberName")
-	private double m_Kp;
+	enum Tolerance {
+		kAbsolute, kPercent;
+	}
 
-	// Factor for "integral" control
+	/**
+	 * Everything about the controller that is set rather than computed. Never modified once
+	 * published; setters publish a changed copy.
+	 */
 	@SuppressWarnings("MemberName")
-	private double m_Ki;
+	private static final class Config {
+		// Factors for "proportional", "integral" and "derivative" control
+		final double m_Kp;
+		final double m_Ki;
+		final double m_Kd;
 
-	// Factor for "derivative" control
-	@SuppressWarnings("MemberName")
-	private double m_Kd;
+		// |minimum output| and |maximum output|
+		final double m_minimumOutput;
+		final double m_maximumOutput;
 
-	// The current value of the process variable.
-	private double m_measurement;
+		// Minimum and maximum input - limit setpoint to these
+		final double m_minimumInput;
+		final double m_maximumInput;
 
-	// |maximum output|
-	private double m_maximumOutput = 1.0;
+		// input range - difference between maximum and minimum
+		final double m_inputRange;
 
-	// |minimum output|
-	private double m_minimumOutput = -1.0;
+		// Do the endpoints wrap around? eg. Absolute encoder
+		final boolean m_continuous;
 
-	// Maximum input - limit setpoint to this
-	private double m_maximumInput;
+		final Tolerance m_toleranceType;
 
-	// Minimum input - limit setpoint to this
-	private double m_minimumInput;
+		// The percentage or absolute error that is considered at reference.
+		final double m_tolerance;
+		final double m_deltaTolerance;
 
-	// input range - difference between maximum and minimum
-	private double m_inputRange;
+		@SuppressWarnings({"ParameterName", "PMD.ExcessiveParameterList"})
+		Config(double Kp, double Ki, double Kd, double minimumOutput, double maximumOutput,
+				double minimumInput, double maximumInput, boolean continuous, Tolerance toleranceType,
+				double tolerance, double deltaTolerance) {
+			m_Kp = Kp;
+			m_Ki = Ki;
+			m_Kd = Kd;
+			m_minimumOutput = minimumOutput;
+			m_maximumOutput = maximumOutput;
+			m_minimumInput = minimumInput;
+			m_maximumInput = maximumInput;
+			m_inputRange = maximumInput - minimumInput;
+			m_continuous = continuous;
+			m_toleranceType = toleranceType;
+			m_tolerance = tolerance;
+			m_deltaTolerance = deltaTolerance;
+		}
 
-	// Do the endpoints wrap around? eg. Absolute encoder
-	private boolean m_continuous;
+		@SuppressWarnings("ParameterName")
+		Config withPID(double Kp, double Ki, double Kd) {
+			return new Config(Kp, Ki, Kd, m_minimumOutput, m_maximumOutput, m_minimumInput,
+					m_maximumInput, m_continuous, m_toleranceType, m_tolerance, m_deltaTolerance);
+		}
 
-	// The prior error (used to compute velocity)
-	private double m_prevError;
+		Config withOutputRange(double minimumOutput, double maximumOutput) {
+			return new Config(m_Kp, m_Ki, m_Kd, minimumOutput, maximumOutput, m_minimumInput,
+					m_maximumInput, m_continuous, m_toleranceType, m_tolerance, m_deltaTolerance);
+		}
 
-	// The sum of the errors for use in the integral calc
-	private double m_totalError;
+		Config withInputRange(double minimumInput, double maximumInput) {
+			return new Config(m_Kp, m_Ki, m_Kd, m_minimumOutput, m_maximumOutput, minimumInput,
+					maximumInput, m_continuous, m_toleranceType, m_tolerance, m_deltaTolerance);
+		}
 
-	enum Tolerance {
-		kAbsolute, kPercent;
+		Config withContinuous(boolean continuous) {
+			return new Config(m_Kp, m_Ki, m_Kd, m_minimumOutput, m_maximumOutput, m_minimumInput,
+					m_maximumInput, continuous, m_toleranceType, m_tolerance, m_deltaTolerance);
+		}
+
+		Config withTolerance(Tolerance toleranceType, double tolerance, double deltaTolerance) {
+			return new Config(m_Kp, m_Ki, m_Kd, m_minimumOutput, m_maximumOutput, m_minimumInput,
+					m_maximumInput, m_continuous, toleranceType, tolerance, deltaTolerance);
+		}
+
+		/**
+		 * Wraps error around for continuous inputs. The original error is returned if continuous
+		 * mode is disabled.
+		 */
+		double continuousError(double error) {
+			return m_continuous ? PIDCore.continuousError(error, m_inputRange) : error;
+		}
 	}
 
-	private Tolerance m_toleranceType = Tolerance.kAbsolute;
+	private final AtomicReference<Config> m_config;
 
-	// The percentage or absolute error that is considered at reference.
-	private double m_tolerance = 0.05;
-	private double m_deltaTolerance = Double.POSITIVE_INFINITY;
+	// The current value of the process variable.
+	private volatile double m_measurement;
+
+	private volatile double m_reference;
+
+	// Owned by the thread calling calculate(), along with the config it was last given
+	private final PIDCore m_core;
+	private Config m_coreConfig;
 
-	private double m_reference;
-	private double m_output;
+	// Copies of the core's state for other threads. The prior error (used to compute velocity), the
+	// time it was computed over, and the latest output.
+	private volatile double m_prevError;
+	private volatile double m_prevDt;
+	private volatile double m_output;
+
+	// Set by reset() so the next calculate() starts from a clean history even if a calculation
+	// was in progress at the time
+	private final AtomicBoolean m_resetPending = new AtomicBoolean();
 
 	/**
 	 * Allocate a PID object with the given constants for Kp, Ki, and Kd and a default period of 20ms.
@@ -105,15 +174,20 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	public PIDController(double Kp, double Ki, double Kd, double period) {
 		super(period);
 
-		m_Kp = Kp;
-		m_Ki = Ki;
-		m_Kd = Kd;
+		m_config = new AtomicReference<>(new Config(Kp, Ki, Kd, -1.0, 1.0, 0.0, 0.0, false,
+				Tolerance.kAbsolute, 0.05, Double.POSITIVE_INFINITY));
+		m_core = new PIDCore(Kp, Ki, Kd);
+		m_prevDt = period;
 
 		instances++;
 		HAL.report(tResourceType.kResourceType_PIDController, instances);
 		m_name = "PIDController[" + instances + "]";
 	}
 
+	private Config update(UnaryOperator<Config> change) {
+		return m_config.updateAndGet(change);
+	}
+
 	/**
 	 * Set the PID Controller gain parameters.
 	 *
@@ -125,14 +199,7 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 */
 	@SuppressWarnings("ParameterName")
 	public void setPID(double Kp, double Ki, double Kd) {
-		m_thisMutex.lock();
-		try {
-			m_Kp = Kp;
-			m_Ki = Ki;
-			m_Kd = Kd;
-		} finally {
-			m_thisMutex.unlock();
-		}
+		update(c -> c.withPID(Kp, Ki, Kd));
 	}
 
 	/**
@@ -142,12 +209,7 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 */
 	@SuppressWarnings("ParameterName")
 	public void setP(double Kp) {
-		m_thisMutex.lock();
-		try {
-			m_Kp = Kp;
-		} finally {
-			m_thisMutex.unlock();
-		}
+		update(c -> c.withPID(Kp, c.m_Ki, c.m_Kd));
 	}
 
 	/**
@@ -157,12 +219,7 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 */
 	@SuppressWarnings("ParameterName")
 	public void setI(double Ki) {
-		m_thisMutex.lock();
-		try {
-			m_Ki = Ki;
-		} finally {
-			m_thisMutex.unlock();
-		}
+		update(c -> c.withPID(c.m_Kp, Ki, c.m_Kd));
 	}
 
 	/**
@@ -172,12 +229,7 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 */
 	@SuppressWarnings("ParameterName")
 	public void setD(double Kd) {
-		m_thisMutex.lock();
-		try {
-			m_Kd = Kd;
-		} finally {
-			m_thisMutex.unlock();
-		}
+		update(c -> c.withPID(c.m_Kp, c.m_Ki, Kd));
 	}
 
 	/**
@@ -186,12 +238,7 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 * @return proportional coefficient
 	 */
 	public double getP() {
-		m_thisMutex.lock();
-		try {
-			return m_Kp;
-		} finally {
-			m_thisMutex.unlock();
-		}
+		return m_config.get().m_Kp;
 	}
 
 	/**
@@ -200,12 +247,7 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 * @return integral coefficient
 	 */
 	public double getI() {
-		m_thisMutex.lock();
-		try {
-			return m_Ki;
-		} finally {
-			m_thisMutex.unlock();
-		}
+		return m_config.get().m_Ki;
 	}
 
 	/**
@@ -214,12 +256,7 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 * @return differential coefficient
 	 */
 	public double getD() {
-		m_thisMutex.lock();
-		try {
-			return m_Kd;
-		} finally {
-			m_thisMutex.unlock();
-		}
+		return m_config.get().m_Kd;
 	}
 
 	/**
@@ -230,12 +267,7 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 * @return The latest calculated output.
 	 */
 	public double getOutput() {
-		m_thisMutex.lock();
-		try {
-			return m_output;
-		} finally {
-			m_thisMutex.unlock();
-		}
+		return m_output;
 	}
 
 	/**
@@ -244,12 +276,7 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 * @param measurement The latest measurement of the process variable.
 	 */
 	public void setMeasurement(double measurement) {
-		m_thisMutex.lock();
-		try {
-			m_measurement = measurement;
-		} finally {
-			m_thisMutex.unlock();
-		}
+		m_measurement = measurement;
 	}
 
 	/**
@@ -258,15 +285,11 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 * @param reference the desired reference
 	 */
 	public void setReference(double reference) {
-		m_thisMutex.lock();
-		try {
-			if (m_maximumInput > m_minimumInput) {
-				m_reference = clamp(reference, m_minimumInput, m_maximumInput);
-			} else {
-				m_reference = reference;
-			}
-		} finally {
-			m_thisMutex.unlock();
+		Config config = m_config.get();
+		if (config.m_maximumInput > config.m_minimumInput) {
+			m_reference = clamp(reference, config.m_minimumInput, config.m_maximumInput);
+		} else {
+			m_reference = reference;
 		}
 	}
 
@@ -276,12 +299,7 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 * @return the current reference
 	 */
 	public double getReference() {
-		m_thisMutex.lock();
-		try {
-			return m_reference;
-		} finally {
-			m_thisMutex.unlock();
-		}
+		return m_reference;
 	}
 
 	/**
@@ -297,7 +315,8 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 * @return Whether the error is within the acceptable bounds.
 	 */
 	public boolean atReference() {
-		return atReference(m_tolerance, m_deltaTolerance, m_toleranceType);
+		Config config = m_config.get();
+		return atReference(config, config.m_tolerance, config.m_deltaTolerance, config.m_toleranceType);
 	}
 
 	/**
@@ -310,20 +329,19 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 * @return Whether the error is within the acceptable bounds.
 	 */
 	public boolean atReference(double tolerance, double deltaTolerance, Tolerance toleranceType) {
-		double error = getError();
-
-		m_thisMutex.lock();
-		try {
-			double deltaError = (error - m_prevError) / getPeriod();
-			if (toleranceType == Tolerance.kPercent) {
-				return Math.abs(error) < tolerance / 100 * m_inputRange
-						&& Math.abs(deltaError) < deltaTolerance / 100 * m_inputRange;
-			} else {
-				return Math.abs(error) < tolerance
-						&& Math.abs(deltaError) < deltaTolerance;
-			}
-		} finally {
-			m_thisMutex.unlock();
+		return atReference(m_config.get(), tolerance, deltaTolerance, toleranceType);
+	}
+
+	private boolean atReference(Config config, double tolerance, double deltaTolerance,
+			Tolerance toleranceType) {
+		double error = config.continuousError(m_reference - m_measurement);
+		double deltaError = (error - m_prevError) / m_prevDt;
+		if (toleranceType == Tolerance.kPercent) {
+			return Math.abs(error) < tolerance / 100 * config.m_inputRange
+					&& Math.abs(deltaError) < deltaTolerance / 100 * config.m_inputRange;
+		} else {
+			return Math.abs(error) < tolerance
+					&& Math.abs(deltaError) < deltaTolerance;
 		}
 	}
 
@@ -346,12 +364,7 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 * @param continuous true turns on continuous, false turns off continuous
 	 */
 	public void setContinuous(boolean continuous) {
-		m_thisMutex.lock();
-		try {
-			m_continuous = continuous;
-		} finally {
-			m_thisMutex.unlock();
-		}
+		update(c -> c.withContinuous(continuous));
 	}
 
 	/**
@@ -361,14 +374,7 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 * @param maximumInput the maximum value expected from the output
 	 */
 	public void setInputRange(double minimumInput, double maximumInput) {
-		m_thisMutex.lock();
-		try {
-			m_minimumInput = minimumInput;
-			m_maximumInput = maximumInput;
-			m_inputRange = maximumInput - minimumInput;
-		} finally {
-			m_thisMutex.unlock();
-		}
+		update(c -> c.withInputRange(minimumInput, maximumInput));
 
 		setReference(getReference());
 	}
@@ -380,13 +386,7 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 * @param maximumOutput the maximum value to write to the output
 	 */
 	public void setOutputRange(double minimumOutput, double maximumOutput) {
-		m_thisMutex.lock();
-		try {
-			m_minimumOutput = minimumOutput;
-			m_maximumOutput = maximumOutput;
-		} finally {
-			m_thisMutex.unlock();
-		}
+		update(c -> c.withOutputRange(minimumOutput, maximumOutput));
 	}
 
 	/**
@@ -405,14 +405,7 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 * @param deltaTolerance Change in absolute error per second which is tolerable.
 	 */
 	public void setAbsoluteTolerance(double tolerance, double deltaTolerance) {
-		m_thisMutex.lock();
-		try {
-			m_toleranceType = Tolerance.kAbsolute;
-			m_tolerance = tolerance;
-			m_deltaTolerance = deltaTolerance;
-		} finally {
-			m_thisMutex.unlock();
-		}
+		update(c -> c.withTolerance(Tolerance.kAbsolute, tolerance, deltaTolerance));
 	}
 
 	/**
@@ -431,14 +424,7 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 * @param deltaTolerance Change in percent error per second which is tolerable.
 	 */
 	public void setPercentTolerance(double tolerance, double deltaTolerance) {
-		m_thisMutex.lock();
-		try {
-			m_toleranceType = Tolerance.kPercent;
-			m_tolerance = tolerance;
-			m_deltaTolerance = deltaTolerance;
-		} finally {
-			m_thisMutex.unlock();
-		}
+		update(c -> c.withTolerance(Tolerance.kPercent, tolerance, deltaTolerance));
 	}
 
 	/**
@@ -447,98 +433,73 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 * @return The error.
 	 */
 	public double getError() {
-		m_thisMutex.lock();
-		try {
-			return getContinuousError(m_reference - m_measurement);
-		} finally {
-			m_thisMutex.unlock();
-		}
+		return m_config.get().continuousError(m_reference - m_measurement);
 	}
 
 	/**
 	 * Returns the change in error per second.
 	 */
 	public double getDeltaError() {
-		double error = getError();
-
-		m_thisMutex.lock();
-		try {
-			return (error - m_prevError) / getPeriod();
-		} finally {
-			m_thisMutex.unlock();
-		}
+		return (getError() - m_prevError) / m_prevDt;
 	}
 
 	@Override
-	@SuppressWarnings("LocalVariableName")
 	public double calculate() {
-		// Storage for function inputs
-		final double Kp;
-		final double Ki;
-		final double Kd;
-		final double measurement = m_measurement;
-		final double minimumOutput;
-		final double maximumOutput;
-
-		// Storage for function input-outputs
-		final double prevError;
-		final double error;
-		double totalError;
-
-		m_thisMutex.lock();
-		try {
-			Kp = m_Kp;
-			Ki = m_Ki;
-			Kd = m_Kd;
-			minimumOutput = m_minimumOutput;
-			maximumOutput = m_maximumOutput;
-
-			prevError = m_prevError;
-			error = getContinuousError(m_reference - measurement);
-			totalError = m_totalError;
-		} finally {
-			m_thisMutex.unlock();
+		return calculate(getPeriod());
+	}
+
+	@Override
+	public double calculate(double reference, double measurement) {
+		return calculate(reference, measurement, getPeriod());
+	}
+
+	@Override
+	public double calculate(double reference, double measurement, double dt) {
+		setReference(reference);
+		setMeasurement(measurement);
+		return calculate(dt);
+	}
+
+	/**
+	 * Calculate the output based on the last updated reference and measurement values.
+	 *
+	 * @param dt The time since the previous calculation, in seconds. The nominal period is used if
+	 *           this isn't positive.
+	 * @return The controller output.
+	 */
+	public double calculate(double dt) {
+		if (!(dt > 0)) {
+			dt = getPeriod();
 		}
 
-		if (Ki != 0) {
-			totalError = clamp(totalError + error * getPeriod(), minimumOutput / Ki,
-					maximumOutput / Ki);
+		// One consistent snapshot of the configuration for the whole calculation
+		final Config config = m_config.get();
+		if (config != m_coreConfig) {
+			m_core.setPID(config.m_Kp, config.m_Ki, config.m_Kd);
+			m_core.setOutputRange(config.m_minimumOutput, config.m_maximumOutput);
+			m_core.setContinuous(config.m_continuous, config.m_inputRange);
+			m_coreConfig = config;
+		}
+		if (m_resetPending.getAndSet(false)) {
+			m_core.reset();
 		}
 
-		double output = clamp(Kp * error + Ki * totalError + Kd * (error - prevError) / getPeriod(),
-				minimumOutput, maximumOutput);
+		final double output = m_core.calculate(m_reference, m_measurement, dt);
 
-		m_thisMutex.lock();
-		try {
-			m_prevError = error;
-			m_totalError = totalError;
-			m_output = output;
-		} finally {
-			m_thisMutex.unlock();
-		}
+		m_prevError = m_core.getError();
+		m_prevDt = dt;
+		m_output = output;
 
 		return output;
 	}
 
-	@Override
-	public double calculate(double reference, double measurement) {
-		setReference(reference);
-		setMeasurement(measurement);
-		return calculate();
-	}
-
 	/**
 	 * Reset the previous error, the integral term, and disable the controller.
 	 */
 	public void reset() {
-		m_thisMutex.lock();
-		try {
-			m_prevError = 0;
-			m_totalError = 0;
-			m_output = 0;
-		} finally {
-			m_thisMutex.unlock();
-		}
+		m_prevError = 0;
+		m_output = 0;
+		m_resetPending.set(true);
 	}
 
 	@Override
@@ -576,6 +537,11 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 		LiveWindow.remove(this);
 	}
 
+	/**
+	 * No longer used by this class, which takes no locks. Kept for subclasses that synchronize
+	 * their own state with it.
+	 */
+	@Deprecated
 	protected ReentrantLock m_thisMutex = new ReentrantLock();
 
 	/**
@@ -586,18 +552,7 @@ public class PIDController extends Controller implements Sendable, AutoCloseable
 	 * @return Error for continuous inputs.
 	 */
 	protected double getContinuousError(double error) {
-		if (m_continuous && m_inputRange > 0) {
-			error %= m_inputRange;
-			if (Math.abs(error) > m_inputRange / 2) {
-				if (error > 0) {
-					return error - m_inputRange;
-				} else {
-					return error + m_inputRange;
-				}
-			}
-		}
-
-		return error;
+		return m_config.get().continuousError(error);
 	}
 
 	private static double clamp(double value, double low, double high) {
@@ -0,0 +1,273 @@
+package org.team5940.pantry.experimental.controller;
+
+/**
+ * The arithmetic of a PID controller, shared by {@link PIDController} and
+ * {@link com.team1323.lib.util.SynchronousPIDF}.
+ *
+ * <p>Each call to {@link #calculate(double, double, double)} takes the measured time since the
+ * previous one, so the integral and derivative terms stay correct when the loop runs late. The
+ * core keeps the error history and its own copy of the gains and limits in plain fields, takes no
+ * locks and never allocates; it is meant to be owned and driven by a single thread.
+ *
+ * <p>The step itself is {@link #step}, which keeps the error history in an array so that {@link
+ * PIDBank} can run many controllers through the same code.
+ */
+public final class PIDCore {
+	/**
+	 * How the integral term is kept from winding up.
+	 */
+	public enum IntegralMode {
+		/**
+		 * The integral is clamped so the integral term, plus any feed forward passed to the
+		 * calculation, stays within the output range.
+		 */
+		kClamp,
+		/**
+		 * The integral is cleared whenever the proportional term, plus any feed forward passed to
+		 * the calculation, would saturate the output, and accumulates freely otherwise.
+		 */
+		kResetOutsideProportionalBand
+	}
+
+	private double m_Kp;
+	private double m_Ki;
+	private double m_Kd;
+	// Gain on the reference, for feed forward
+	private double m_Kf;
+
+	private double m_minimumOutput = -1.0;
+	private double m_maximumOutput = 1.0;
+
+	private boolean m_continuous;
+	private double m_inputRange;
+
+	// Errors smaller than this give no proportional term
+	private double m_deadband;
+
+	private IntegralMode m_integralMode = IntegralMode.kClamp;
+
+	// The error of the latest calculation, then the integral of the error
+	private final double[] m_state = new double[2];
+	private double m_output;
+
+	/**
+	 * Creates a new PID core.
+	 *
+	 * @param Kp The proportional coefficient.
+	 * @param Ki The integral coefficient.
+	 * @param Kd The derivative coefficient.
+	 */
+	@SuppressWarnings("ParameterName")
+	public PIDCore(double Kp, double Ki, double Kd) {
+		m_Kp = Kp;
+		m_Ki = Ki;
+		m_Kd = Kd;
+	}
+
+	/**
+	 * Wraps an error into [-inputRange / 2, inputRange / 2], taking the shorter way around a
+	 * continuous input. Errors are returned unchanged if the range isn't positive.
+	 *
+	 * @param error      The error.
+	 * @param inputRange The difference between the largest and smallest input.
+	 * @return The wrapped error.
+	 */
+	public static double continuousError(double error, double inputRange) {
+		if (inputRange > 0) {
+			error %= inputRange;
+			if (Math.abs(error) > inputRange / 2) {
+				if (error > 0) {
+					return error - inputRange;
+				} else {
+					return error + inputRange;
+				}
+			}
+		}
+
+		return error;
+	}
+
+	/**
+	 * Calculates the output for the given reference and measurement.
+	 *
+	 * @param reference   The value of the reference.
+	 * @param measurement The value of the process variable.
+	 * @param dt          The time since the previous calculation, in seconds. Must be positive.
+	 * @return The controller output.
+	 */
+	public double calculate(double reference, double measurement, double dt) {
+		return calculate(reference, measurement, 0.0, dt);
+	}
+
+	/**
+	 * Calculates the output for the given reference and measurement, plus a feed forward term that
+	 * is added before the output is clamped. The feed forward counts against the output range when
+	 * limiting the integral, so the integral doesn't wind up while the feed forward saturates the
+	 * output.
+	 *
+	 * @param reference   The value of the reference.
+	 * @param measurement The value of the process variable.
+	 * @param feedForward The feed forward term.
+	 * @param dt          The time since the previous calculation, in seconds. Must be positive.
+	 * @return The controller output.
+	 */
+	public double calculate(double reference, double measurement, double feedForward, double dt) {
+		m_output = step(m_Kp, m_Ki, m_Kd, m_Kf, m_minimumOutput, m_maximumOutput,
+				m_continuous ? m_inputRange : 0.0, m_deadband, m_integralMode,
+				reference, measurement, feedForward, dt, m_state, 0);
+		return m_output;
+	}
+
+	/**
+	 * Calculates one step of a PID controller whose error history is kept in an array. The gains
+	 * and limits are as set on a core by the methods of the same names.
+	 *
+	 * @param inputRange  The range over which the input wraps around, or zero if it doesn't.
+	 * @param reference   The value of the reference.
+	 * @param measurement The value of the process variable.
+	 * @param feedForward A term added to the output, which counts against the output range when
+	 *                    limiting the integral.
+	 * @param dt          The time since the previous step, in seconds. Must be positive.
+	 * @param state       The error of the previous step at {@code 2 * index} and the integral of the
+	 *                    error at {@code 2 * index + 1}, both updated by this step. Zeros for the
+	 *                    first step.
+	 * @param index       Which controller in state to step.
+	 * @return The controller output.
+	 */
+	@SuppressWarnings({"ParameterName", "LocalVariableName", "PMD.ExcessiveParameterList"})
+	public static double step(double Kp, double Ki, double Kd, double Kf,
+			double minimumOutput, double maximumOutput, double inputRange, double deadband,
+			IntegralMode integralMode, double reference, double measurement, double feedForward,
+			double dt, double[] state, int index) {
+		final double error = continuousError(reference - measurement, inputRange);
+		final double prevError = state[2 * index];
+		double totalError = state[2 * index + 1];
+
+		if (integralMode == IntegralMode.kClamp) {
+			if (Ki != 0) {
+				totalError = clamp(totalError + error * dt, (minimumOutput - feedForward) / Ki,
+						(maximumOutput - feedForward) / Ki);
+			}
+		} else {
+			final double proportional = error * Kp + feedForward;
+			if (proportional < maximumOutput && proportional > minimumOutput) {
+				totalError += error * dt;
+			} else {
+				totalError = 0;
+			}
+		}
+
+		// The deadband only silences the proportional term, so the derivative still sees the error
+		final double proportionalError = Math.abs(error) < deadband ? 0 : error;
+
+		state[2 * index] = error;
+		state[2 * index + 1] = totalError;
+		return clamp(Kp * proportionalError + Ki * totalError + Kd * (error - prevError) / dt
+				+ Kf * reference + feedForward, minimumOutput, maximumOutput);
+	}
+
+	/**
+	 * Sets the proportional, integral, and differential coefficients.
+	 */
+	@SuppressWarnings("ParameterName")
+	public void setPID(double Kp, double Ki, double Kd) {
+		m_Kp = Kp;
+		m_Ki = Ki;
+		m_Kd = Kd;
+	}
+
+	/**
+	 * Sets the feed forward coefficient, which multiplies the reference.
+	 */
+	@SuppressWarnings("ParameterName")
+	public void setF(double Kf) {
+		m_Kf = Kf;
+	}
+
+	public double getP() {
+		return m_Kp;
+	}
+
+	public double getI() {
+		return m_Ki;
+	}
+
+	public double getD() {
+		return m_Kd;
+	}
+
+	public double getF() {
+		return m_Kf;
+	}
+
+	/**
+	 * Sets the minimum and maximum output.
+	 */
+	public void setOutputRange(double minimumOutput, double maximumOutput) {
+		m_minimumOutput = minimumOutput;
+		m_maximumOutput = maximumOutput;
+	}
+
+	/**
+	 * Sets whether the input wraps around, and over what range.
+	 *
+	 * @param continuous Whether the ends of the input range are the same point.
+	 * @param inputRange The difference between the largest and smallest input.
+	 */
+	public void setContinuous(boolean continuous, double inputRange) {
+		m_continuous = continuous;
+		m_inputRange = inputRange;
+	}
+
+	/**
+	 * Sets the error below which the proportional term is zero.
+	 */
+	public void setDeadband(double deadband) {
+		m_deadband = deadband;
+	}
+
+	public void setIntegralMode(IntegralMode integralMode) {
+		m_integralMode = integralMode;
+	}
+
+	/**
+	 * Returns the error used in the latest calculation.
+	 */
+	public double getError() {
+		return m_state[0];
+	}
+
+	/**
+	 * Returns the accumulated integral of the error.
+	 */
+	public double getTotalError() {
+		return m_state[1];
+	}
+
+	/**
+	 * Returns the latest output.
+	 */
+	public double getOutput() {
+		return m_output;
+	}
+
+	/**
+	 * Clears the error history, the integral, and the output.
+	 */
+	public void reset() {
+		m_state[0] = 0;
+		m_state[1] = 0;
+		m_output = 0;
+	}
+
+	/**
+	 * Clears the integral only.
+	 */
+	public void resetIntegrator() {
+		m_state[1] = 0;
+	}
+
+	private static double clamp(double value, double low, double high) {
+		return Math.max(low, Math.min(value, high));
+	}
+}
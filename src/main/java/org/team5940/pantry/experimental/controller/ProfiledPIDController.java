@@ -0,0 +1,395 @@
+package org.team5940.pantry.experimental.controller;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * A PID controller that follows a {@link MotionProfile} to its goal instead of stepping straight
+ * to it, for mechanisms such as elevators and wrists.
+ *
+ * <p>The reference given to {@link #calculate(double, double, double)}, e.g. by a controller
+ * runner, is the goal. Whenever it changes, a new profile is generated from the current setpoint
+ * and its velocity, so the motion stays continuous. Each calculation then advances the profile by
+ * dt, runs PID on the profiled setpoint, and adds velocity and acceleration feed forward inside
+ * the PID output clamp, so the integral stops winding up once the feed forward saturates the
+ * output. Between goal changes a calculation only samples the precomputed profile, and nothing
+ * allocates.
+ *
+ * <p>After {@link #reset()}, and on the first calculation, the profile starts from the measurement
+ * at rest. Call it before re-enabling a runner if the mechanism may have moved while disabled.
+ * Inputs that wrap around are not supported.
+ *
+ * <p>Like {@link PIDController}, the controller takes no locks. Gains, constraints and limits live
+ * in an immutable configuration that setters replace atomically, and the goal and measurement may
+ * be set from any thread. The profile and error history are written only by {@link
+ * #calculate()}, which must not be called from more than one thread at a time; other threads may
+ * read their latest results.
+ */
+@SuppressWarnings("MemberName")
+public class ProfiledPIDController extends Controller {
+	/**
+	 * Everything about the controller that is set rather than computed. Never modified once
+	 * published; setters publish a changed copy.
+	 */
+	private static final class Config {
+		final double m_Kp;
+		final double m_Ki;
+		final double m_Kd;
+
+		// Feed forward on the profiled velocity and acceleration
+		final double m_Kv;
+		final double m_Ka;
+
+		final double m_maxVelocity;
+		final double m_maxAcceleration;
+		final double m_maxJerk;
+
+		final double m_minimumOutput;
+		final double m_maximumOutput;
+
+		// The absolute error that is considered at the goal
+		final double m_tolerance;
+
+		@SuppressWarnings({"ParameterName", "PMD.ExcessiveParameterList"})
+		Config(double Kp, double Ki, double Kd, double Kv, double Ka, double maxVelocity,
+				double maxAcceleration, double maxJerk, double minimumOutput, double maximumOutput,
+				double tolerance) {
+			m_Kp = Kp;
+			m_Ki = Ki;
+			m_Kd = Kd;
+			m_Kv = Kv;
+			m_Ka = Ka;
+			m_maxVelocity = maxVelocity;
+			m_maxAcceleration = maxAcceleration;
+			m_maxJerk = maxJerk;
+			m_minimumOutput = minimumOutput;
+			m_maximumOutput = maximumOutput;
+			m_tolerance = tolerance;
+		}
+
+		@SuppressWarnings("ParameterName")
+		Config withPID(double Kp, double Ki, double Kd) {
+			return new Config(Kp, Ki, Kd, m_Kv, m_Ka, m_maxVelocity, m_maxAcceleration, m_maxJerk,
+					m_minimumOutput, m_maximumOutput, m_tolerance);
+		}
+
+		@SuppressWarnings("ParameterName")
+		Config withFeedForward(double Kv, double Ka) {
+			return new Config(m_Kp, m_Ki, m_Kd, Kv, Ka, m_maxVelocity, m_maxAcceleration, m_maxJerk,
+					m_minimumOutput, m_maximumOutput, m_tolerance);
+		}
+
+		Config withConstraints(double maxVelocity, double maxAcceleration, double maxJerk) {
+			return new Config(m_Kp, m_Ki, m_Kd, m_Kv, m_Ka, maxVelocity, maxAcceleration, maxJerk,
+					m_minimumOutput, m_maximumOutput, m_tolerance);
+		}
+
+		Config withOutputRange(double minimumOutput, double maximumOutput) {
+			return new Config(m_Kp, m_Ki, m_Kd, m_Kv, m_Ka, m_maxVelocity, m_maxAcceleration,
+					m_maxJerk, minimumOutput, maximumOutput, m_tolerance);
+		}
+
+		Config withTolerance(double tolerance) {
+			return new Config(m_Kp, m_Ki, m_Kd, m_Kv, m_Ka, m_maxVelocity, m_maxAcceleration,
+					m_maxJerk, m_minimumOutput, m_maximumOutput, tolerance);
+		}
+
+		boolean hasConstraintsOf(Config other) {
+			return m_maxVelocity == other.m_maxVelocity
+					&& m_maxAcceleration == other.m_maxAcceleration
+					&& m_maxJerk == other.m_maxJerk;
+		}
+
+		boolean hasConstraintsOf(MotionProfile profile) {
+			return m_maxVelocity == profile.getMaxVelocity()
+					&& m_maxAcceleration == profile.getMaxAcceleration()
+					&& m_maxJerk == profile.getMaxJerk();
+		}
+	}
+
+	private final AtomicReference<Config> m_config;
+
+	private volatile double m_goal;
+	private volatile double m_measurement;
+
+	// Owned by the thread calling calculate(), along with the config the core was last given
+	private final PIDCore m_core;
+	private final MotionProfile m_profile;
+	private Config m_coreConfig;
+	// The time since the current profile started
+	private double m_time;
+
+	// Copies of the latest results for other threads
+	private volatile double m_setpoint;
+	private volatile double m_setpointVelocity;
+	private volatile double m_error;
+	private volatile double m_output;
+	// The goal and constraints of the profile being followed, and whether it has ended
+	private volatile double m_profileGoal;
+	private volatile Config m_profileConfig;
+	private volatile boolean m_profileFinished;
+
+	// Whether the next calculation starts a profile from the measurement
+	private final AtomicBoolean m_resetPending = new AtomicBoolean(true);
+
+	/**
+	 * Allocate a profiled PID controller with a trapezoidal profile and a default period of 20ms.
+	 *
+	 * @param Kp              The proportional coefficient.
+	 * @param Ki              The integral coefficient.
+	 * @param Kd              The derivative coefficient.
+	 * @param maxVelocity     The maximum speed of the profile.
+	 * @param maxAcceleration The maximum acceleration of the profile.
+	 */
+	@SuppressWarnings("ParameterName")
+	public ProfiledPIDController(double Kp, double Ki, double Kd, double maxVelocity,
+			double maxAcceleration) {
+		this(Kp, Ki, Kd, maxVelocity, maxAcceleration, Double.POSITIVE_INFINITY, 0.02);
+	}
+
+	/**
+	 * Allocate a profiled PID controller.
+	 *
+	 * @param Kp              The proportional coefficient.
+	 * @param Ki              The integral coefficient.
+	 * @param Kd              The derivative coefficient.
+	 * @param maxVelocity     The maximum speed of the profile.
+	 * @param maxAcceleration The maximum acceleration of the profile.
+	 * @param maxJerk         The maximum jerk of the profile, or infinity for a trapezoidal profile.
+	 * @param period          The period between controller updates in seconds.
+	 */
+	@SuppressWarnings({"ParameterName", "PMD.ExcessiveParameterList"})
+	public ProfiledPIDController(double Kp, double Ki, double Kd, double maxVelocity,
+			double maxAcceleration, double maxJerk, double period) {
+		super(period);
+		m_profile = new MotionProfile(maxVelocity, maxAcceleration, maxJerk);
+		m_core = new PIDCore(Kp, Ki, Kd);
+		m_config = new AtomicReference<>(new Config(Kp, Ki, Kd, 0.0, 0.0, maxVelocity,
+				maxAcceleration, maxJerk, -1.0, 1.0, 0.05));
+	}
+
+	private Config update(UnaryOperator<Config> change) {
+		return m_config.updateAndGet(change);
+	}
+
+	/**
+	 * Set the PID Controller gain parameters.
+	 *
+	 * @param Kp Proportional coefficient
+	 * @param Ki Integral coefficient
+	 * @param Kd Differential coefficient
+	 */
+	@SuppressWarnings("ParameterName")
+	public void setPID(double Kp, double Ki, double Kd) {
+		update(config -> config.withPID(Kp, Ki, Kd));
+	}
+
+	public double getP() {
+		return m_config.get().m_Kp;
+	}
+
+	public double getI() {
+		return m_config.get().m_Ki;
+	}
+
+	public double getD() {
+		return m_config.get().m_Kd;
+	}
+
+	/**
+	 * Sets the feed forward gains, which multiply the velocity and acceleration of the profile.
+	 *
+	 * @param Kv Velocity coefficient
+	 * @param Ka Acceleration coefficient
+	 */
+	@SuppressWarnings("ParameterName")
+	public void setFeedForward(double Kv, double Ka) {
+		update(config -> config.withFeedForward(Kv, Ka));
+	}
+
+	/**
+	 * Sets the limits of a trapezoidal profile. The profile in progress is regenerated with them.
+	 *
+	 * @param maxVelocity     The maximum speed of the profile.
+	 * @param maxAcceleration The maximum acceleration of the profile.
+	 */
+	public void setConstraints(double maxVelocity, double maxAcceleration) {
+		setConstraints(maxVelocity, maxAcceleration, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Sets the limits of the profile. The profile in progress is regenerated with them.
+	 *
+	 * @param maxVelocity     The maximum speed of the profile.
+	 * @param maxAcceleration The maximum acceleration of the profile.
+	 * @param maxJerk         The maximum jerk of the profile, or infinity for a trapezoidal profile.
+	 */
+	public void setConstraints(double maxVelocity, double maxAcceleration, double maxJerk) {
+		MotionProfile.checkConstraints(maxVelocity, maxAcceleration, maxJerk);
+		update(config -> config.withConstraints(maxVelocity, maxAcceleration, maxJerk));
+	}
+
+	/**
+	 * Sets the minimum and maximum values of the output, including feed forward.
+	 *
+	 * @param minimumOutput the minimum value to write to the output
+	 * @param maximumOutput the maximum value to write to the output
+	 */
+	public void setOutputRange(double minimumOutput, double maximumOutput) {
+		update(config -> config.withOutputRange(minimumOutput, maximumOutput));
+	}
+
+	/**
+	 * Sets the absolute error which is considered tolerable for use with {@link #atGoal()}.
+	 *
+	 * @param tolerance Absolute error which is tolerable.
+	 */
+	public void setAbsoluteTolerance(double tolerance) {
+		update(config -> config.withTolerance(tolerance));
+	}
+
+	/**
+	 * Sets the goal for {@link #calculate()}.
+	 */
+	public void setGoal(double goal) {
+		m_goal = goal;
+	}
+
+	/**
+	 * Returns the current goal.
+	 */
+	public double getGoal() {
+		return m_goal;
+	}
+
+	/**
+	 * Sets the measurement for {@link #calculate()}.
+	 */
+	public void setMeasurement(double measurement) {
+		m_measurement = measurement;
+	}
+
+	/**
+	 * Returns the profiled setpoint as of the latest calculation.
+	 */
+	public double getSetpoint() {
+		return m_setpoint;
+	}
+
+	/**
+	 * Returns the velocity of the profiled setpoint as of the latest calculation.
+	 */
+	public double getSetpointVelocity() {
+		return m_setpointVelocity;
+	}
+
+	/**
+	 * Returns the error between the profiled setpoint and the measurement as of the latest
+	 * calculation.
+	 */
+	public double getError() {
+		return m_error;
+	}
+
+	/**
+	 * Returns the latest output.
+	 */
+	public double getOutput() {
+		return m_output;
+	}
+
+	/**
+	 * Returns true if the profile has reached the goal and the measurement is within the tolerance
+	 * of it.
+	 */
+	public boolean atGoal() {
+		final Config config = m_config.get();
+		final Config profileConfig = m_profileConfig;
+		final double goal = m_goal;
+		return !m_resetPending.get() && profileConfig != null && config.hasConstraintsOf(profileConfig)
+				&& m_profileGoal == goal && m_profileFinished
+				&& Math.abs(goal - m_measurement) < config.m_tolerance;
+	}
+
+	@Override
+	public double calculate() {
+		return calculate(getPeriod());
+	}
+
+	@Override
+	public double calculate(double goal, double measurement) {
+		return calculate(goal, measurement, getPeriod());
+	}
+
+	@Override
+	public double calculate(double goal, double measurement, double dt) {
+		m_goal = goal;
+		m_measurement = measurement;
+		return calculate(dt);
+	}
+
+	/**
+	 * Calculate the output based on the last updated goal and measurement values.
+	 *
+	 * @param dt The time since the previous calculation, in seconds. The nominal period is used if
+	 *           this isn't positive.
+	 * @return The controller output.
+	 */
+	public double calculate(double dt) {
+		if (!(dt > 0)) {
+			dt = getPeriod();
+		}
+
+		// One consistent snapshot of the configuration, goal and measurement for the whole calculation
+		final Config config = m_config.get();
+		final double goal = m_goal;
+		final double measurement = m_measurement;
+
+		if (config != m_coreConfig) {
+			m_core.setPID(config.m_Kp, config.m_Ki, config.m_Kd);
+			m_core.setOutputRange(config.m_minimumOutput, config.m_maximumOutput);
+			m_coreConfig = config;
+		}
+		final boolean constraintsChanged = !config.hasConstraintsOf(m_profile);
+		if (constraintsChanged) {
+			m_profile.setConstraints(config.m_maxVelocity, config.m_maxAcceleration, config.m_maxJerk);
+		}
+
+		if (m_resetPending.getAndSet(false)) {
+			m_core.reset();
+			m_profile.generate(measurement, 0.0, goal);
+			m_time = 0.0;
+		} else if (constraintsChanged || m_profile.getGoal() != goal) {
+			// Carry on from where the setpoint was, as of the latest sample
+			m_profile.generate(m_profile.getPosition(), m_profile.getVelocity(), goal);
+			m_time = 0.0;
+		}
+
+		m_time += dt;
+		m_profile.sample(m_time);
+
+		final double setpoint = m_profile.getPosition();
+		final double feedForward = config.m_Kv * m_profile.getVelocity()
+				+ config.m_Ka * m_profile.getAcceleration();
+		final double output = m_core.calculate(setpoint, measurement, feedForward, dt);
+
+		m_setpoint = setpoint;
+		m_setpointVelocity = m_profile.getVelocity();
+		m_error = m_core.getError();
+		m_output = output;
+		m_profileGoal = goal;
+		m_profileConfig = config;
+		m_profileFinished = m_profile.isFinished(m_time);
+		return output;
+	}
+
+	/**
+	 * Reset the error history and the integral term, and start the next profile from the
+	 * measurement.
+	 */
+	public void reset() {
+		m_output = 0;
+		m_resetPending.set(true);
+	}
+}
@@ -0,0 +1,92 @@
+package org.team5940.pantry.experimental.controller;
+
+import org.team5940.pantry.lib.time.Clock;
+
+/**
+ * The timekeeping shared by everything that runs a controller: the time since the previous run,
+ * measured with a clock, and the optional {@link ControllerStatistics}.
+ *
+ * <p>{@link #begin()} and {@link #end()} bracket each run and must be called from one thread at a
+ * time. The first run, and the first run after {@link #restart()}, has nothing to measure from and
+ * is given the nominal period. {@link #restart()} and the statistics methods may be called from any
+ * thread.
+ */
+final class RunTimer {
+	private final Clock m_clock;
+	private final double m_period;
+	// When the latest run began, or NaN if none has since the last restart; only touched by runs
+	private double m_lastTimestamp = Double.NaN;
+	private volatile boolean m_restarted;
+	// Null unless enabled, so runs cost one read when statistics aren't wanted
+	private volatile ControllerStatistics m_statistics;
+	// The statistics and start time of the run in progress
+	private ControllerStatistics m_runStatistics;
+	private long m_runStart;
+
+	/**
+	 * Creates a new run timer.
+	 *
+	 * @param clock  The clock to measure the time between runs with.
+	 * @param period The nominal period of the runs, in seconds.
+	 */
+	RunTimer(Clock clock, double period) {
+		m_clock = clock;
+		m_period = period;
+	}
+
+	/**
+	 * Begins a run.
+	 *
+	 * @return The time since the previous run began, in seconds.
+	 */
+	double begin() {
+		m_runStatistics = m_statistics;
+		m_runStart = m_runStatistics != null ? System.nanoTime() : 0;
+		final double timestamp = m_clock.getTimestamp();
+		if (m_restarted) {
+			m_restarted = false;
+			m_lastTimestamp = Double.NaN;
+		}
+		final double dt = Double.isNaN(m_lastTimestamp) ? m_period : timestamp - m_lastTimestamp;
+		m_lastTimestamp = timestamp;
+		return dt;
+	}
+
+	/**
+	 * Ends the run begun by {@link #begin()}, recording it in the statistics if there are any.
+	 */
+	void end() {
+		if (m_runStatistics != null) {
+			m_runStatistics.record(m_runStart, System.nanoTime());
+			m_runStatistics = null;
+		}
+	}
+
+	/**
+	 * Makes the next run start afresh, for when runs resume after a pause.
+	 */
+	void restart() {
+		m_restarted = true;
+		final ControllerStatistics statistics = m_statistics;
+		if (statistics != null) {
+			statistics.restart();
+		}
+	}
+
+	ControllerStatistics enableStatistics() {
+		ControllerStatistics statistics = m_statistics;
+		if (statistics == null) {
+			statistics = new ControllerStatistics(m_period);
+			m_statistics = statistics;
+		}
+		return statistics;
+	}
+
+	void disableStatistics() {
+		m_statistics = null;
+	}
+
+	ControllerStatistics getStatistics() {
+		return m_statistics;
+	}
+}
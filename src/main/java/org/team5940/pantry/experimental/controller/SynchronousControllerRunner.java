@@ -3,17 +3,21 @@ package org.team5940.pantry.experimental.controller;
 import java.util.function.DoubleConsumer;
 import java.util.function.DoubleSupplier;
 
+import org.team5940.pantry.lib.time.Clock;
+
 /**
  * A convenience wrapper for running a {@link Controller} synchronously, allowing the user to pass
  * in functions for reference, measurement, and output.  Said functions have no need to be
  * thread-safe.  {@link SynchronousControllerRunner#run()} must be called synchronously from the
- * main robot loop by the user.
+ * main robot loop by the user.  The controller is given the time measured between runs, and the
+ * nominal period on the first run and the first run after {@link #stop()}.
  */
 public class SynchronousControllerRunner {
 	private final Controller m_controller;
 	private final DoubleSupplier m_referenceSource;
 	private final DoubleSupplier m_measurementSource;
 	private final DoubleConsumer m_controllerOutput;
+	private final RunTimer m_timer;
 
 	/**
 	 * Creates a new SynchronousControllerRunner.
@@ -27,6 +31,24 @@ public class SynchronousControllerRunner {
 			DoubleSupplier referenceSource,
 			DoubleSupplier measurementSource,
 			DoubleConsumer controllerOutput) {
+		this(Clock.fpga(), controller, referenceSource, measurementSource, controllerOutput);
+	}
+
+	/**
+	 * Creates a new SynchronousControllerRunner that measures time with the given clock.
+	 *
+	 * @param clock             The clock to measure the time between runs with.
+	 * @param controller        The controller to run.
+	 * @param referenceSource   The source for the reference value for the controller.
+	 * @param measurementSource The source for the process variable value for the controller.
+	 * @param controllerOutput  The method that uses the output of the controller.
+	 */
+	public SynchronousControllerRunner(Clock clock,
+			Controller controller,
+			DoubleSupplier referenceSource,
+			DoubleSupplier measurementSource,
+			DoubleConsumer controllerOutput) {
+		m_timer = new RunTimer(clock, controller.getPeriod());
 		m_controller = controller;
 		m_referenceSource = referenceSource;
 		m_measurementSource = measurementSource;
@@ -37,8 +59,10 @@ public class SynchronousControllerRunner {
 	 * Runs the controller.  Must be called synchronously from the main robot loop.
 	 */
 	public void run() {
+		final double dt = m_timer.begin();
 		m_controllerOutput.accept(m_controller.calculate(
-				m_referenceSource.getAsDouble(), m_measurementSource.getAsDouble()));
+				m_referenceSource.getAsDouble(), m_measurementSource.getAsDouble(), dt));
+		m_timer.end();
 	}
 
 	/**
@@ -46,5 +70,31 @@ public class SynchronousControllerRunner {
 	 */
 	public void stop() {
 		m_controllerOutput.accept(0);
+		m_timer.restart();
+	}
+
+	/**
+	 * Starts keeping timing statistics for this runner, if it isn't already.
+	 *
+	 * @return The statistics.
+	 */
+	public ControllerStatistics enableStatistics() {
+		return m_timer.enableStatistics();
+	}
+
+	/**
+	 * Stops keeping timing statistics.
+	 */
+	public void disableStatistics() {
+		m_timer.disableStatistics();
+	}
+
+	/**
+	 * Returns the timing statistics of this runner.
+	 *
+	 * @return The statistics, or null if they are not enabled.
+	 */
+	public ControllerStatistics getStatistics() {
+		return m_timer.getStatistics();
 	}
 }
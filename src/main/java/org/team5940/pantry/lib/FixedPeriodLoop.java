@@ -0,0 +1,151 @@
+package org.team5940.pantry.lib;
+
+import org.team5940.pantry.lib.time.Clock;
+import org.team5940.pantry.lib.time.PeriodicExecutor;
+
+import edu.wpi.first.wpilibj.Notifier;
+
+/**
+ * Runs a loop body at a fixed period on a {@link Notifier}, measuring the real time between
+ * iterations and keeping {@link LoopTiming} statistics on how well the period is held.
+ *
+ * <p>The body is handed the timestamp sampled at the start of the iteration and the measured dt
+ * since the previous one, so it never has to assume the nominal period. Telemetry that doesn't
+ * need to run every iteration (dashboard publishing, logging) can be attached with
+ * {@link #setTelemetry(Runnable, int)} and is only run every Nth iteration, after the body.
+ *
+ * <p>Given a {@link PeriodicExecutor} other than the default, the loop runs on it and takes its
+ * timestamps from the executor's clock, so it can be driven in simulated time. Execution times are
+ * always measured in real time.
+ */
+public class FixedPeriodLoop implements AutoCloseable {
+	/**
+	 * The work done on each iteration of a {@link FixedPeriodLoop}.
+	 */
+	@FunctionalInterface
+	public interface Body {
+		/**
+		 * @param timestamp The timestamp at the start of this iteration, in seconds.
+		 * @param dt        The measured time since the start of the previous iteration, in seconds.
+		 *                  On the first iteration after {@link #start()} this is the nominal period.
+		 */
+		void run(double timestamp, double dt);
+	}
+
+	private final double m_period;
+	private final Body m_body;
+	private final PeriodicExecutor.Task m_notifier;
+	private final Clock m_clock;
+	private final LoopTiming m_timing;
+
+	private Runnable m_telemetry;
+	private int m_telemetryDecimation = 1;
+
+	private double m_lastTimestamp = Double.NaN;
+	private long m_iterations;
+
+	/**
+	 * Creates a new loop. It does not run until {@link #start()} is called.
+	 *
+	 * @param period The period of the loop, in seconds.
+	 * @param body   The work to do on each iteration.
+	 */
+	public FixedPeriodLoop(double period, Body body) {
+		this(PeriodicExecutor.notifier(), period, body);
+	}
+
+	/**
+	 * Creates a new loop on the given executor. It does not run until {@link #start()} is called.
+	 *
+	 * @param executor The executor to run the loop on.
+	 * @param period   The period of the loop, in seconds.
+	 * @param body     The work to do on each iteration.
+	 */
+	public FixedPeriodLoop(PeriodicExecutor executor, double period, Body body) {
+		if (period <= 0) {
+			throw new IllegalArgumentException("Loop period must be positive");
+		}
+		m_period = period;
+		m_body = body;
+		m_timing = new LoopTiming(period);
+		m_notifier = executor.create(this::iterate);
+		m_clock = executor.getClock();
+	}
+
+	/**
+	 * Sets work to run every {@code decimation} iterations, after the body. The telemetry runs on
+	 * the loop thread, so it can read whatever state the body left without synchronization.
+	 *
+	 * @param telemetry  The telemetry to run, or null for none.
+	 * @param decimation Run the telemetry once every this many iterations.
+	 */
+	public synchronized void setTelemetry(Runnable telemetry, int decimation) {
+		if (decimation < 1) {
+			throw new IllegalArgumentException("Telemetry decimation must be at least 1");
+		}
+		m_telemetry = telemetry;
+		m_telemetryDecimation = decimation;
+	}
+
+	/**
+	 * Starts the loop. The first iteration runs one period from now.
+	 */
+	public synchronized void start() {
+		m_lastTimestamp = Double.NaN;
+		m_iterations = 0;
+		m_notifier.startPeriodic(m_period);
+	}
+
+	/**
+	 * Stops the loop. An iteration that is already running is allowed to finish.
+	 */
+	public void stop() {
+		m_notifier.stop();
+	}
+
+	@Override
+	public void close() {
+		m_notifier.close();
+	}
+
+	private void iterate() {
+		final long start = System.nanoTime();
+		final double timestamp = m_clock.getTimestamp();
+		final double measuredDt;
+		final Runnable telemetry;
+		// Only the bookkeeping is guarded, so callers on other threads never wait for the body
+		synchronized (this) {
+			measuredDt = timestamp - m_lastTimestamp;
+			m_lastTimestamp = timestamp;
+			telemetry = m_iterations % m_telemetryDecimation == 0 ? m_telemetry : null;
+			m_iterations++;
+		}
+
+		m_body.run(timestamp, Double.isNaN(measuredDt) ? m_period : measuredDt);
+
+		if (telemetry != null) {
+			telemetry.run();
+		}
+
+		m_timing.record(measuredDt, (System.nanoTime() - start) * 1e-9);
+	}
+
+	public double getPeriod() {
+		return m_period;
+	}
+
+	/**
+	 * @return The number of iterations started since the loop was last started.
+	 */
+	public synchronized long getIterationCount() {
+		return m_iterations;
+	}
+
+	/**
+	 * @return The timing statistics of this loop. These are kept across restarts; call
+	 *         {@link LoopTiming#reset()} to clear them.
+	 */
+	public LoopTiming getTiming() {
+		return m_timing;
+	}
+}
@@ -0,0 +1,112 @@
+package org.team5940.pantry.lib;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-bucket histogram of non-negative samples, cheap enough to record into from a control loop.
+ *
+ * <p>Samples from 0 up to the range given at construction fall into equal-width buckets; anything
+ * larger is counted in a single overflow bucket. Recording never allocates. The histogram is meant
+ * to be written by one thread; readers on other threads may see a sample half-recorded, which is
+ * fine for telemetry.
+ */
+public class Histogram {
+	private final double m_bucketWidth;
+	private final long[] m_counts;
+	private long m_overflow;
+	private long m_count;
+	private double m_sum;
+	private double m_max;
+
+	/**
+	 * Creates a new histogram.
+	 *
+	 * @param range      The largest sample that lands in a regular bucket.
+	 * @param numBuckets The number of regular buckets.
+	 */
+	public Histogram(double range, int numBuckets) {
+		if (range <= 0 || numBuckets <= 0) {
+			throw new IllegalArgumentException("Histogram range and bucket count must be positive");
+		}
+		m_bucketWidth = range / numBuckets;
+		m_counts = new long[numBuckets];
+	}
+
+	/**
+	 * Records a sample. Negative samples are counted in the first bucket.
+	 */
+	public void record(double value) {
+		int bucket = (int) (value / m_bucketWidth);
+		if (bucket < 0) {
+			bucket = 0;
+		}
+		if (bucket < m_counts.length) {
+			m_counts[bucket]++;
+		} else {
+			m_overflow++;
+		}
+		m_count++;
+		m_sum += value;
+		if (value > m_max) {
+			m_max = value;
+		}
+	}
+
+	public void reset() {
+		Arrays.fill(m_counts, 0);
+		m_overflow = 0;
+		m_count = 0;
+		m_sum = 0;
+		m_max = 0;
+	}
+
+	public long getCount() {
+		return m_count;
+	}
+
+	public long getOverflowCount() {
+		return m_overflow;
+	}
+
+	public double getMax() {
+		return m_max;
+	}
+
+	public double getMean() {
+		return m_count == 0 ? 0 : m_sum / m_count;
+	}
+
+	public int getNumBuckets() {
+		return m_counts.length;
+	}
+
+	public double getBucketWidth() {
+		return m_bucketWidth;
+	}
+
+	public long getBucketCount(int bucket) {
+		return m_counts[bucket];
+	}
+
+	/**
+	 * Estimates a percentile from the bucket counts. The result is the upper edge of the bucket the
+	 * percentile falls in, so it overestimates by at most one bucket width. Percentiles that fall in
+	 * the overflow bucket report the largest sample seen.
+	 *
+	 * @param percentile A fraction from 0 to 1.
+	 */
+	public double getPercentile(double percentile) {
+		if (m_count == 0) {
+			return 0;
+		}
+		long target = (long) Math.ceil(percentile * m_count);
+		long seen = 0;
+		for (int i = 0; i < m_counts.length; i++) {
+			seen += m_counts[i];
+			if (seen >= target) {
+				return Math.min((i + 1) * m_bucketWidth, m_max);
+			}
+		}
+		return m_max;
+	}
+}
@@ -0,0 +1,101 @@
+package org.team5940.pantry.lib;
+
+/**
+ * Timing statistics for a loop that is meant to run at a fixed period.
+ *
+ * <p>Tracks the measured period between iterations, the jitter of that period against the nominal
+ * one, and how long each iteration took to execute. An iteration that takes longer than the
+ * nominal period to execute is counted as an overrun; a gap between iterations of one and a half
+ * periods or more means the loop missed a slot entirely. All times are in seconds.
+ */
+public class LoopTiming {
+	private static final int kNumBuckets = 100;
+
+	private final double m_period;
+	private final Histogram m_periodHistogram;
+	private final Histogram m_jitterHistogram;
+	private final Histogram m_executionHistogram;
+	private long m_overruns;
+	private long m_missed;
+
+	/**
+	 * Creates a new set of loop statistics.
+	 *
+	 * @param period The nominal period of the loop, in seconds.
+	 */
+	public LoopTiming(double period) {
+		m_period = period;
+		m_periodHistogram = new Histogram(4 * period, kNumBuckets);
+		m_jitterHistogram = new Histogram(2 * period, kNumBuckets);
+		m_executionHistogram = new Histogram(2 * period, kNumBuckets);
+	}
+
+	/**
+	 * Records one iteration of the loop.
+	 *
+	 * @param dt            The measured time since the previous iteration started, or NaN on the
+	 *                      first iteration.
+	 * @param executionTime How long this iteration took to run.
+	 */
+	public void record(double dt, double executionTime) {
+		if (!Double.isNaN(dt)) {
+			m_periodHistogram.record(dt);
+			m_jitterHistogram.record(Math.abs(dt - m_period));
+			if (dt >= 1.5 * m_period) {
+				m_missed++;
+			}
+		}
+		m_executionHistogram.record(executionTime);
+		if (executionTime > m_period) {
+			m_overruns++;
+		}
+	}
+
+	public void reset() {
+		m_periodHistogram.reset();
+		m_jitterHistogram.reset();
+		m_executionHistogram.reset();
+		m_overruns = 0;
+		m_missed = 0;
+	}
+
+	public double getPeriod() {
+		return m_period;
+	}
+
+	public Histogram getPeriodHistogram() {
+		return m_periodHistogram;
+	}
+
+	public Histogram getJitterHistogram() {
+		return m_jitterHistogram;
+	}
+
+	public Histogram getExecutionHistogram() {
+		return m_executionHistogram;
+	}
+
+	/**
+	 * @return The number of iterations that took longer than the nominal period to execute.
+	 */
+	public long getOverrunCount() {
+		return m_overruns;
+	}
+
+	/**
+	 * @return The number of gaps between iterations of at least one and a half nominal periods.
+	 */
+	public long getMissedCount() {
+		return m_missed;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("period mean %.2f ms, jitter p99 %.2f ms max %.2f ms, execution p99 %.2f ms max %.2f ms, "
+				+ "%d overruns, %d missed",
+				m_periodHistogram.getMean() * 1e3,
+				m_jitterHistogram.getPercentile(0.99) * 1e3, m_jitterHistogram.getMax() * 1e3,
+				m_executionHistogram.getPercentile(0.99) * 1e3, m_executionHistogram.getMax() * 1e3,
+				m_overruns, m_missed);
+	}
+}
@@ -0,0 +1,33 @@
+package org.team5940.pantry.lib.simulation;
+
+import com.team254.lib.geometry.Twist2d;
+
+/**
+ * A differential drive with a top wheel speed. Sideways velocity is dropped, and commands that
+ * would need either side to go faster than the top speed are scaled down, keeping the curvature.
+ */
+public class DifferentialDriveModel implements DriveModel {
+	private final double m_trackWidth;
+	private final double m_maxWheelSpeed;
+
+	/**
+	 * @param trackWidth    The effective distance between the left and right wheels.
+	 * @param maxWheelSpeed The top speed of either side, in the same length units per second.
+	 */
+	public DifferentialDriveModel(double trackWidth, double maxWheelSpeed) {
+		m_trackWidth = trackWidth;
+		m_maxWheelSpeed = maxWheelSpeed;
+	}
+
+	@Override
+	public Twist2d constrain(Twist2d command) {
+		double left = command.dx - command.dtheta * m_trackWidth / 2;
+		double right = command.dx + command.dtheta * m_trackWidth / 2;
+		double scale = Math.max(Math.abs(left), Math.abs(right)) / m_maxWheelSpeed;
+		if (scale > 1) {
+			left /= scale;
+			right /= scale;
+		}
+		return new Twist2d((left + right) / 2, 0, (right - left) / m_trackWidth);
+	}
+}
@@ -0,0 +1,16 @@
+package org.team5940.pantry.lib.simulation;
+
+import com.team254.lib.geometry.Twist2d;
+
+/**
+ * The kinematic limits of a drivetrain, used by the {@link KinematicSimulator} to turn a commanded
+ * chassis velocity into the velocity the robot actually drives at.
+ */
+@FunctionalInterface
+public interface DriveModel {
+	/**
+	 * @param command The commanded chassis velocity in the robot frame.
+	 * @return The chassis velocity this drivetrain achieves.
+	 */
+	Twist2d constrain(Twist2d command);
+}
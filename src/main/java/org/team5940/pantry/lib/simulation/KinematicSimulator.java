@@ -0,0 +1,238 @@
+package org.team5940.pantry.lib.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.team5940.pantry.lib.Histogram;
+
+import com.team254.lib.geometry.Pose2d;
+import com.team254.lib.geometry.Pose2dWithCurvature;
+import com.team254.lib.geometry.Rotation2d;
+import com.team254.lib.geometry.Twist2d;
+import com.team254.lib.trajectory.TimedView;
+import com.team254.lib.trajectory.Trajectory;
+import com.team254.lib.trajectory.TrajectoryProjectionIndex;
+import com.team254.lib.trajectory.timing.TimedState;
+
+/**
+ * Drives a {@link Tracker} along a trajectory in simulated time, as fast as the CPU allows.
+ *
+ * <p>Each tick the tracker is given the robot pose and its velocity command is passed through a
+ * {@link DriveModel} and integrated with {@link Pose2d#exp}. The pose the tracker sees and the
+ * command the robot executes can each be delayed by a whole number of ticks, and Gaussian noise
+ * can be added to the measured pose and to the executed velocity. Noise comes from a seeded
+ * {@link Random}, so a run is fully repeatable.
+ *
+ * <p>Configure the simulator before running it; a configured simulator can then run any number of
+ * scenarios at once, see {@link #runAll(List)}.
+ */
+public class KinematicSimulator {
+	private static final double kTrackerTimeRange = 1e-3;
+	private static final int kTrackerTimeBuckets = 1000;
+
+	private final DriveModel m_driveModel;
+	private double m_period = 0.01;
+	private int m_commandDelay = 0;
+	private int m_measurementDelay = 0;
+	private double m_positionNoise = 0;
+	private double m_headingNoise = 0;
+	private double m_velocityNoise = 0;
+	private double m_timeout = 2.0;
+
+	public KinematicSimulator(DriveModel driveModel) {
+		m_driveModel = driveModel;
+	}
+
+	/**
+	 * @param period Simulated seconds per tick. Defaults to 0.01.
+	 */
+	public KinematicSimulator setPeriod(double period) {
+		m_period = period;
+		return this;
+	}
+
+	/**
+	 * @param ticks How many ticks old the pose given to the tracker is.
+	 */
+	public KinematicSimulator setMeasurementDelay(int ticks) {
+		m_measurementDelay = ticks;
+		return this;
+	}
+
+	/**
+	 * @param ticks How many ticks after it is computed a velocity command takes effect.
+	 */
+	public KinematicSimulator setCommandDelay(int ticks) {
+		m_commandDelay = ticks;
+		return this;
+	}
+
+	/**
+	 * @param positionStdDev Standard deviation of the noise on each coordinate of the measured pose.
+	 * @param headingStdDev  Standard deviation of the noise on the measured heading, in radians.
+	 */
+	public KinematicSimulator setMeasurementNoise(double positionStdDev, double headingStdDev) {
+		m_positionNoise = positionStdDev;
+		m_headingNoise = headingStdDev;
+		return this;
+	}
+
+	/**
+	 * @param stdDev Standard deviation of the error on each executed velocity component, as a
+	 *               fraction of that component.
+	 */
+	public KinematicSimulator setVelocityNoise(double stdDev) {
+		m_velocityNoise = stdDev;
+		return this;
+	}
+
+	/**
+	 * @param timeout How long after the end of the trajectory to give up on the tracker finishing.
+	 */
+	public KinematicSimulator setTimeout(double timeout) {
+		m_timeout = timeout;
+		return this;
+	}
+
+	/**
+	 * Runs each scenario on its own tracker, in parallel.
+	 *
+	 * @return One result per scenario, in the same order.
+	 */
+	public List<SimulationResult> runAll(List<Scenario> scenarios) {
+		return scenarios.parallelStream()
+				.map(scenario -> run(scenario.m_tracker.get(), scenario.m_trajectory, scenario.m_seed))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Runs the tracker along a trajectory, starting at the first state of the trajectory, until the
+	 * tracker is done or the timeout expires.
+	 *
+	 * @param seed Seed for the noise.
+	 */
+	public SimulationResult run(Tracker tracker, Trajectory<TimedState<Pose2dWithCurvature>> trajectory, long seed) {
+		final Random random = new Random(seed);
+
+		final int length = trajectory.length();
+		final List<Pose2dWithCurvature> states = new ArrayList<>(length);
+		final double[] times = new double[length];
+		for (int i = 0; i < length; i++) {
+			states.add(trajectory.getState(i).state());
+			times[i] = trajectory.getState(i).t();
+		}
+		final TrajectoryProjectionIndex<Pose2dWithCurvature> index = new TrajectoryProjectionIndex<>(
+				new Trajectory<>(states));
+		final TrajectoryProjectionIndex.Projection projection = new TrajectoryProjectionIndex.Projection();
+		final TimedView<Pose2dWithCurvature> view = new TimedView<>(trajectory);
+		final double startTime = view.first_interpolant();
+		final double endTime = view.last_interpolant();
+
+		Pose2d pose = states.get(0).getPose();
+
+		// Ring buffers holding the last few true poses and commands; the oldest entry is the one used.
+		final double[] poseX = new double[m_measurementDelay + 1];
+		final double[] poseY = new double[m_measurementDelay + 1];
+		final double[] poseTheta = new double[m_measurementDelay + 1];
+		Arrays.fill(poseX, pose.getTranslation().x());
+		Arrays.fill(poseY, pose.getTranslation().y());
+		Arrays.fill(poseTheta, pose.getRotation().getRadians());
+		final double[] commandX = new double[m_commandDelay + 1];
+		final double[] commandY = new double[m_commandDelay + 1];
+		final double[] commandTheta = new double[m_commandDelay + 1];
+		int poseHead = 0;
+		int commandHead = 0;
+
+		final Histogram trackerTime = new Histogram(kTrackerTimeRange, kTrackerTimeBuckets);
+		double crossTrackSum = 0, crossTrackMax = 0;
+		double timeErrorSum = 0, timeErrorMax = 0;
+		double positionErrorMax = 0;
+		int hint = -1;
+		int ticks = 0;
+
+		tracker.reset(trajectory);
+		double time = 0;
+		while (!tracker.isDone() && time <= endTime - startTime + m_timeout) {
+			poseX[poseHead] = pose.getTranslation().x();
+			poseY[poseHead] = pose.getTranslation().y();
+			poseTheta[poseHead] = pose.getRotation().getRadians();
+			poseHead = (poseHead + 1) % poseX.length;
+			final Pose2d measured = new Pose2d(
+					poseX[poseHead] + m_positionNoise * random.nextGaussian(),
+					poseY[poseHead] + m_positionNoise * random.nextGaussian(),
+					Rotation2d.fromRadians(poseTheta[poseHead] + m_headingNoise * random.nextGaussian()));
+
+			final long start = System.nanoTime();
+			final Twist2d command = tracker.update(time, measured);
+			trackerTime.record((System.nanoTime() - start) * 1e-9);
+
+			commandX[commandHead] = command.dx;
+			commandY[commandHead] = command.dy;
+			commandTheta[commandHead] = command.dtheta;
+			commandHead = (commandHead + 1) % commandX.length;
+			Twist2d velocity = m_driveModel.constrain(
+					new Twist2d(commandX[commandHead], commandY[commandHead], commandTheta[commandHead]));
+			if (m_velocityNoise > 0) {
+				velocity = new Twist2d(
+						velocity.dx * (1 + m_velocityNoise * random.nextGaussian()),
+						velocity.dy * (1 + m_velocityNoise * random.nextGaussian()),
+						velocity.dtheta * (1 + m_velocityNoise * random.nextGaussian()));
+			}
+			pose = pose.transformBy(Pose2d.exp(velocity.scaled(m_period)));
+			time += m_period;
+			ticks++;
+
+			index.project(pose.getTranslation().x(), pose.getTranslation().y(), hint, projection);
+			hint = projection.getSegmentIndex();
+			final double crossTrack = Math.abs(projection.getCrossTrackError());
+			crossTrackSum += crossTrack * crossTrack;
+			crossTrackMax = Math.max(crossTrackMax, crossTrack);
+
+			final int i = projection.getSegmentIndex();
+			final double projectedTime = times[i]
+					+ projection.getSegmentFraction() * (times[Math.min(i + 1, length - 1)] - times[i]);
+			final double referenceTime = Math.min(startTime + time, endTime);
+			final double timeError = projectedTime - referenceTime;
+			timeErrorSum += timeError * timeError;
+			timeErrorMax = Math.max(timeErrorMax, Math.abs(timeError));
+
+			final double positionError = view.sample(referenceTime).state().state().getTranslation()
+					.distance(pose.getTranslation());
+			positionErrorMax = Math.max(positionErrorMax, positionError);
+		}
+
+		final int n = Math.max(ticks, 1);
+		return new SimulationResult(tracker.isDone(), ticks,
+				Math.sqrt(crossTrackSum / n), crossTrackMax,
+				Math.sqrt(timeErrorSum / n), timeErrorMax,
+				positionErrorMax,
+				states.get(length - 1).getTranslation().distance(pose.getTranslation()),
+				pose, trackerTime);
+	}
+
+	/**
+	 * One run for {@link KinematicSimulator#runAll(List)}.
+	 */
+	public static class Scenario {
+		private final Supplier<? extends Tracker> m_tracker;
+		private final Trajectory<TimedState<Pose2dWithCurvature>> m_trajectory;
+		private final long m_seed;
+
+		/**
+		 * @param tracker    Creates the tracker for this run; trackers are stateful, so each run
+		 *                   needs its own.
+		 * @param trajectory The trajectory to follow.
+		 * @param seed       Seed for the noise.
+		 */
+		public Scenario(Supplier<? extends Tracker> tracker, Trajectory<TimedState<Pose2dWithCurvature>> trajectory,
+				long seed) {
+			m_tracker = tracker;
+			m_trajectory = trajectory;
+			m_seed = seed;
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package org.team5940.pantry.lib.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.team254.lib.geometry.Pose2d;
+import com.team254.lib.geometry.Pose2dWithCurvature;
+import com.team254.lib.geometry.Translation2d;
+import com.team254.lib.geometry.Twist2d;
+import com.team254.lib.trajectory.DistanceView;
+import com.team254.lib.trajectory.PurePursuitController;
+import com.team254.lib.trajectory.Trajectory;
+import com.team254.lib.trajectory.TrajectoryProjectionIndex;
+import com.team254.lib.trajectory.timing.TimedState;
+
+/**
+ * Adapts a {@link PurePursuitController} to the {@link Tracker} interface.
+ *
+ * <p>The robot drives toward the lookahead point at the planned velocity of the closest point on
+ * the path, but never slower than a minimum speed so it can't stall short of the goal. A
+ * differential robot follows the pure pursuit arc through the lookahead point; a holonomic robot
+ * translates straight at it and holds its heading.
+ */
+public class PurePursuitTracker implements Tracker {
+	private final double m_lookahead;
+	private final double m_goalTolerance;
+	private final double m_minSpeed;
+	private final boolean m_holonomic;
+
+	private PurePursuitController<Pose2dWithCurvature> m_controller;
+	private TrajectoryProjectionIndex<Pose2dWithCurvature> m_index;
+	private final TrajectoryProjectionIndex.Projection m_projection = new TrajectoryProjectionIndex.Projection();
+	private double[] m_velocities;
+	private int m_hint = -1;
+
+	/**
+	 * @param lookahead     Radius of the lookahead circle.
+	 * @param goalTolerance How close to the end of the path counts as done.
+	 * @param minSpeed      The slowest the robot is commanded to drive.
+	 * @param holonomic     Whether the robot can translate in any direction.
+	 */
+	public PurePursuitTracker(double lookahead, double goalTolerance, double minSpeed, boolean holonomic) {
+		m_lookahead = lookahead;
+		m_goalTolerance = goalTolerance;
+		m_minSpeed = minSpeed;
+		m_holonomic = holonomic;
+	}
+
+	@Override
+	public void reset(Trajectory<TimedState<Pose2dWithCurvature>> trajectory) {
+		List<Pose2dWithCurvature> states = new ArrayList<>(trajectory.length());
+		m_velocities = new double[trajectory.length()];
+		for (int i = 0; i < trajectory.length(); i++) {
+			states.add(trajectory.getState(i).state());
+			m_velocities[i] = trajectory.getState(i).velocity();
+		}
+		Trajectory<Pose2dWithCurvature> path = new Trajectory<>(states);
+		m_controller = new PurePursuitController<>(new DistanceView<>(path), m_lookahead, m_lookahead,
+				m_goalTolerance);
+		m_index = new TrajectoryProjectionIndex<>(path);
+		m_hint = -1;
+	}
+
+	@Override
+	public Twist2d update(double timestamp, Pose2d pose) {
+		Translation2d steer = m_controller.steer(pose);
+		if (m_controller.isDone() || steer.norm() < 1e-9) {
+			return Twist2d.identity();
+		}
+
+		m_index.project(pose.getTranslation().x(), pose.getTranslation().y(), m_hint, m_projection);
+		m_hint = m_projection.getSegmentIndex();
+		int i = m_projection.getSegmentIndex();
+		double planned = m_velocities[i]
+				+ m_projection.getSegmentFraction() * (m_velocities[Math.min(i + 1, m_velocities.length - 1)] - m_velocities[i]);
+		double speed = Math.max(m_minSpeed, Math.abs(planned));
+
+		Translation2d local = steer.rotateBy(pose.getRotation().inverse());
+		if (m_holonomic) {
+			Translation2d velocity = local.scale(speed / local.norm());
+			return new Twist2d(velocity.x(), velocity.y(), 0);
+		}
+		double curvature = 2 * local.y() / local.norm2();
+		return new Twist2d(speed, 0, speed * curvature);
+	}
+
+	@Override
+	public boolean isDone() {
+		return m_controller != null && m_controller.isDone();
+	}
+}
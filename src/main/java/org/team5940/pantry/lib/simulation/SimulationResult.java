@@ -0,0 +1,108 @@
+package org.team5940.pantry.lib.simulation;
+
+import org.team5940.pantry.lib.Histogram;
+
+import com.team254.lib.geometry.Pose2d;
+
+/**
+ * How well a {@link Tracker} followed a trajectory in one {@link KinematicSimulator} run. Lengths
+ * are in the units of the trajectory and times are in seconds.
+ */
+public class SimulationResult {
+	private final boolean m_finished;
+	private final int m_ticks;
+	private final double m_crossTrackRms;
+	private final double m_crossTrackMax;
+	private final double m_timeErrorRms;
+	private final double m_timeErrorMax;
+	private final double m_positionErrorMax;
+	private final double m_finalPositionError;
+	private final Pose2d m_finalPose;
+	private final Histogram m_trackerTime;
+
+	SimulationResult(boolean finished, int ticks, double crossTrackRms, double crossTrackMax,
+			double timeErrorRms, double timeErrorMax, double positionErrorMax, double finalPositionError,
+			Pose2d finalPose, Histogram trackerTime) {
+		m_finished = finished;
+		m_ticks = ticks;
+		m_crossTrackRms = crossTrackRms;
+		m_crossTrackMax = crossTrackMax;
+		m_timeErrorRms = timeErrorRms;
+		m_timeErrorMax = timeErrorMax;
+		m_positionErrorMax = positionErrorMax;
+		m_finalPositionError = finalPositionError;
+		m_finalPose = finalPose;
+		m_trackerTime = trackerTime;
+	}
+
+	/**
+	 * @return Whether the tracker reported it was done before the simulation timed out.
+	 */
+	public boolean isFinished() {
+		return m_finished;
+	}
+
+	public int getTicks() {
+		return m_ticks;
+	}
+
+	/**
+	 * @return RMS distance from the robot to the closest point on the path.
+	 */
+	public double getCrossTrackRms() {
+		return m_crossTrackRms;
+	}
+
+	public double getCrossTrackMax() {
+		return m_crossTrackMax;
+	}
+
+	/**
+	 * @return RMS difference between the scheduled time of the closest point on the path and the
+	 *         current time. This is how far ahead of or behind schedule the robot is.
+	 */
+	public double getTimeErrorRms() {
+		return m_timeErrorRms;
+	}
+
+	/**
+	 * @return Largest absolute time error.
+	 */
+	public double getTimeErrorMax() {
+		return m_timeErrorMax;
+	}
+
+	/**
+	 * @return Largest distance from the robot to where the trajectory says it should be at that time.
+	 */
+	public double getPositionErrorMax() {
+		return m_positionErrorMax;
+	}
+
+	/**
+	 * @return Distance from the final pose to the end of the trajectory.
+	 */
+	public double getFinalPositionError() {
+		return m_finalPositionError;
+	}
+
+	public Pose2d getFinalPose() {
+		return m_finalPose;
+	}
+
+	/**
+	 * @return Wall-clock time spent in {@link Tracker#update} per tick, in seconds.
+	 */
+	public Histogram getTrackerTime() {
+		return m_trackerTime;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s after %d ticks: cross-track rms %.3f max %.3f, time error rms %.3f max %.3f, "
+				+ "final error %.3f, tracker %.1f us mean %.1f us p99",
+				m_finished ? "finished" : "timed out", m_ticks, m_crossTrackRms, m_crossTrackMax,
+				m_timeErrorRms, m_timeErrorMax, m_finalPositionError,
+				m_trackerTime.getMean() * 1e6, m_trackerTime.getPercentile(0.99) * 1e6);
+	}
+}
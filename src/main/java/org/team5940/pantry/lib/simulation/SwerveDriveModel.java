@@ -0,0 +1,31 @@
+package org.team5940.pantry.lib.simulation;
+
+import com.team254.lib.geometry.Twist2d;
+
+/**
+ * A swerve drive with a top module speed. Module steering is assumed to be instant. Commands that
+ * could need a module to go faster than the top speed are scaled down, keeping their direction.
+ */
+public class SwerveDriveModel implements DriveModel {
+	private final double m_maxModuleSpeed;
+	private final double m_moduleRadius;
+
+	/**
+	 * @param maxModuleSpeed The top speed of a module, in length units per second.
+	 * @param moduleRadius   The distance from the center of the robot to the farthest module.
+	 */
+	public SwerveDriveModel(double maxModuleSpeed, double moduleRadius) {
+		m_maxModuleSpeed = maxModuleSpeed;
+		m_moduleRadius = moduleRadius;
+	}
+
+	@Override
+	public Twist2d constrain(Twist2d command) {
+		// Upper bound on the fastest module; exact when a module lines up with the translation.
+		double fastest = Math.hypot(command.dx, command.dy) + Math.abs(command.dtheta) * m_moduleRadius;
+		if (fastest > m_maxModuleSpeed) {
+			return command.scaled(m_maxModuleSpeed / fastest);
+		}
+		return command;
+	}
+}
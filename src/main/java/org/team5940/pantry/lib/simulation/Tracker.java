@@ -0,0 +1,28 @@
+package org.team5940.pantry.lib.simulation;
+
+import com.team254.lib.geometry.Pose2d;
+import com.team254.lib.geometry.Pose2dWithCurvature;
+import com.team254.lib.geometry.Twist2d;
+import com.team254.lib.trajectory.Trajectory;
+import com.team254.lib.trajectory.timing.TimedState;
+
+/**
+ * A trajectory follower that can be driven by the {@link KinematicSimulator}.
+ */
+public interface Tracker {
+	/**
+	 * Starts following a new trajectory. Called before the first {@link #update}.
+	 */
+	void reset(Trajectory<TimedState<Pose2dWithCurvature>> trajectory);
+
+	/**
+	 * Computes the next velocity command.
+	 *
+	 * @param timestamp Time since the start of the trajectory, in seconds.
+	 * @param pose      The measured robot pose, which may be delayed and noisy.
+	 * @return The commanded chassis velocity in the robot frame, per second.
+	 */
+	Twist2d update(double timestamp, Pose2d pose);
+
+	boolean isDone();
+}
@@ -0,0 +1,22 @@
+package org.team5940.pantry.lib.time;
+
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * A source of timestamps, in seconds. Code that reads time through a Clock instead of calling
+ * {@link Timer#getFPGATimestamp()} directly can be run against {@link VirtualTime} in simulation.
+ */
+@FunctionalInterface
+public interface Clock {
+	/**
+	 * @return The current time, in seconds. Only differences between timestamps are meaningful.
+	 */
+	double getTimestamp();
+
+	/**
+	 * Returns the clock backed by the FPGA timer, which is what robot code runs on.
+	 */
+	static Clock fpga() {
+		return Timer::getFPGATimestamp;
+	}
+}
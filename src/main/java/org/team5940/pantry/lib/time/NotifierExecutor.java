@@ -0,0 +1,41 @@
+package org.team5940.pantry.lib.time;
+
+import edu.wpi.first.wpilibj.Notifier;
+
+/**
+ * Runs each task on its own {@link Notifier}, against the FPGA clock.
+ */
+final class NotifierExecutor implements PeriodicExecutor {
+	static final NotifierExecutor kInstance = new NotifierExecutor();
+
+	private final Clock m_clock = Clock.fpga();
+
+	private NotifierExecutor() {
+	}
+
+	@Override
+	public Task create(Runnable body) {
+		Notifier notifier = new Notifier(body);
+		return new Task() {
+			@Override
+			public void startPeriodic(double period) {
+				notifier.startPeriodic(period);
+			}
+
+			@Override
+			public void stop() {
+				notifier.stop();
+			}
+
+			@Override
+			public void close() {
+				notifier.close();
+			}
+		};
+	}
+
+	@Override
+	public Clock getClock() {
+		return m_clock;
+	}
+}
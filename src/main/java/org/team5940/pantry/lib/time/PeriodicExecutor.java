@@ -0,0 +1,50 @@
+package org.team5940.pantry.lib.time;
+
+/**
+ * Runs tasks at a fixed period, and tells them the time through its {@link Clock}. This is the
+ * abstraction over {@link edu.wpi.first.wpilibj.Notifier} that lets periodic code run against
+ * {@link VirtualTime} in simulation.
+ */
+public interface PeriodicExecutor {
+	/**
+	 * A periodic task. It does not run until {@link #startPeriodic(double)} is called.
+	 */
+	interface Task extends AutoCloseable {
+		/**
+		 * Starts running the task every period, the first time one period from now. Restarting a
+		 * running task changes its period.
+		 *
+		 * @param period The period, in seconds.
+		 */
+		void startPeriodic(double period);
+
+		/**
+		 * Stops running the task. A run that is already in progress is allowed to finish.
+		 */
+		void stop();
+
+		/**
+		 * Stops the task for good and releases anything held for it.
+		 */
+		@Override
+		void close();
+	}
+
+	/**
+	 * Creates a task that runs the given body on this executor once started.
+	 */
+	Task create(Runnable body);
+
+	/**
+	 * @return The clock tasks on this executor should read the time from.
+	 */
+	Clock getClock();
+
+	/**
+	 * Returns the executor backed by WPILib {@link edu.wpi.first.wpilibj.Notifier}s and the FPGA
+	 * clock, which is what robot code runs on.
+	 */
+	static PeriodicExecutor notifier() {
+		return NotifierExecutor.kInstance;
+	}
+}
@@ -0,0 +1,168 @@
+package org.team5940.pantry.lib.time;
+
+import java.util.PriorityQueue;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Simulated time, for running periodic code faster than real time. It is both the clock and the
+ * executor: time only moves when {@link #advance(double)} or {@link #runUntil(BooleanSupplier, double)}
+ * is called, and tasks that come due along the way are run on the calling thread, in timestamp
+ * order, with the clock set to the instant each was due.
+ *
+ * <p>A VirtualTime is not thread-safe; give each simulation its own and drive it from one thread.
+ * Separate instances are independent, so many simulations can run in parallel.
+ */
+public class VirtualTime implements Clock, PeriodicExecutor {
+	private final PriorityQueue<Event> m_events = new PriorityQueue<>();
+	private double m_time;
+	private long m_sequence;
+
+	/**
+	 * Creates a new virtual timeline starting at zero.
+	 */
+	public VirtualTime() {
+		this(0.0);
+	}
+
+	/**
+	 * Creates a new virtual timeline.
+	 *
+	 * @param startTime The initial timestamp, in seconds.
+	 */
+	public VirtualTime(double startTime) {
+		m_time = startTime;
+	}
+
+	@Override
+	public double getTimestamp() {
+		return m_time;
+	}
+
+	@Override
+	public Clock getClock() {
+		return this;
+	}
+
+	@Override
+	public Task create(Runnable body) {
+		return new VirtualTask(body);
+	}
+
+	/**
+	 * Moves time forward, running every task that comes due on the way.
+	 *
+	 * @param seconds How far to move time forward.
+	 */
+	public void advance(double seconds) {
+		advanceTo(m_time + seconds);
+	}
+
+	/**
+	 * Moves time forward to a timestamp, running every task that comes due on the way. Does nothing
+	 * if the timestamp is in the past.
+	 */
+	public void advanceTo(double timestamp) {
+		while (!m_events.isEmpty() && m_events.peek().m_due <= timestamp) {
+			runNext();
+		}
+		if (timestamp > m_time) {
+			m_time = timestamp;
+		}
+	}
+
+	/**
+	 * Runs tasks in timestamp order until the condition holds or the timeout passes. The condition
+	 * is checked before starting and after each task runs.
+	 *
+	 * @param condition The condition to wait for.
+	 * @param timeout   The most time to simulate, in seconds.
+	 * @return Whether the condition holds.
+	 */
+	public boolean runUntil(BooleanSupplier condition, double timeout) {
+		final double deadline = m_time + timeout;
+		while (!condition.getAsBoolean()) {
+			if (m_events.isEmpty() || m_events.peek().m_due > deadline) {
+				m_time = Math.max(m_time, deadline);
+				return condition.getAsBoolean();
+			}
+			runNext();
+		}
+		return true;
+	}
+
+	private void runNext() {
+		Event event = m_events.poll();
+		m_time = event.m_due;
+		VirtualTask task = event.m_task;
+		if (task.m_generation != event.m_generation) {
+			// Stopped or restarted since this was queued
+			return;
+		}
+		task.m_body.run();
+		if (task.m_generation == event.m_generation) {
+			// Multiply rather than accumulate, so rounding doesn't drift the schedule
+			task.m_runs++;
+			schedule(task, task.m_startTime + (task.m_runs + 1) * task.m_period);
+		}
+	}
+
+	private void schedule(VirtualTask task, double due) {
+		m_events.add(new Event(task, task.m_generation, due, m_sequence++));
+	}
+
+	private static final class Event implements Comparable<Event> {
+		final VirtualTask m_task;
+		final long m_generation;
+		final double m_due;
+		// Breaks ties so tasks due at the same instant run in the order they were scheduled
+		final long m_sequence;
+
+		Event(VirtualTask task, long generation, double due, long sequence) {
+			m_task = task;
+			m_generation = generation;
+			m_due = due;
+			m_sequence = sequence;
+		}
+
+		@Override
+		public int compareTo(Event other) {
+			int byDue = Double.compare(m_due, other.m_due);
+			return byDue != 0 ? byDue : Long.compare(m_sequence, other.m_sequence);
+		}
+	}
+
+	private final class VirtualTask implements Task {
+		final Runnable m_body;
+		double m_period;
+		double m_startTime;
+		long m_runs;
+		// Bumped on every start and stop, which invalidates events already queued
+		long m_generation;
+
+		VirtualTask(Runnable body) {
+			m_body = body;
+		}
+
+		@Override
+		public void startPeriodic(double period) {
+			if (period <= 0) {
+				throw new IllegalArgumentException("Period must be positive");
+			}
+			m_period = period;
+			m_startTime = m_time;
+			m_runs = 0;
+			m_generation++;
+			schedule(this, m_startTime + period);
+		}
+
+		@Override
+		public void stop() {
+			m_generation++;
+		}
+
+		@Override
+		public void close() {
+			stop();
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package org.team5940.pantry.experimental.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import org.team5940.pantry.lib.time.PeriodicExecutor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ControllerExecutorTest {
+	private static final int kThreads = 3;
+	private static final int kTasksPerThread = 2;
+
+	@Test
+	void tasksCreatedBeforeStartingAreSpreadAcrossWorkers() throws InterruptedException {
+		final int tasks = kThreads * kTasksPerThread;
+		final Map<Integer, Thread> threads = new ConcurrentHashMap<>();
+		final CountDownLatch ran = new CountDownLatch(tasks);
+		try (ControllerExecutor executor = new ControllerExecutor(kThreads, 0)) {
+			// As at robot init: every controller is created before any is enabled
+			final PeriodicExecutor.Task[] created = new PeriodicExecutor.Task[tasks];
+			for (int i = 0; i < tasks; i++) {
+				final int task = i;
+				created[i] = executor.create(() -> {
+					if (threads.putIfAbsent(task, Thread.currentThread()) == null) {
+						ran.countDown();
+					}
+				});
+			}
+			for (PeriodicExecutor.Task task : created) {
+				task.startPeriodic(0.005);
+			}
+			assertTrue(ran.await(5, TimeUnit.SECONDS), "every task ran");
+			for (PeriodicExecutor.Task task : created) {
+				task.stop();
+			}
+		}
+
+		final Map<Thread, Integer> perThread = new HashMap<>();
+		for (Thread thread : threads.values()) {
+			perThread.merge(thread, 1, Integer::sum);
+		}
+		assertEquals(kThreads, perThread.size());
+		for (int count : perThread.values()) {
+			assertEquals(kTasksPerThread, count);
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package org.team5940.pantry.experimental.controller;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MotionProfileTest {
+	private static final double kEpsilon = 1e-6;
+	private static final int kSamples = 2000;
+
+	/**
+	 * Generates a profile and checks that it starts where it was asked to, never exceeds its limits
+	 * (or the starting speed, if that was above the limit), moves continuously, and comes to rest
+	 * at the goal.
+	 */
+	private static void checkProfile(MotionProfile profile, double position, double velocity,
+			double goal) {
+		profile.generate(position, velocity, goal);
+		final double totalTime = profile.getTotalTime();
+		final double speedLimit = Math.max(profile.getMaxVelocity(), Math.abs(velocity)) + kEpsilon;
+		final double accelerationLimit = profile.getMaxAcceleration() + kEpsilon;
+
+		profile.sample(0.0);
+		assertEquals(position, profile.getPosition(), kEpsilon);
+		assertEquals(velocity, profile.getVelocity(), kEpsilon);
+
+		double prevPosition = position;
+		final double dt = totalTime / kSamples;
+		for (int k = 1; k <= kSamples; k++) {
+			profile.sample(k * dt);
+			assertTrue(Math.abs(profile.getVelocity()) <= speedLimit, "velocity limit");
+			assertTrue(Math.abs(profile.getAcceleration()) <= accelerationLimit, "acceleration limit");
+			assertTrue(Math.abs(profile.getPosition() - prevPosition) <= speedLimit * dt + kEpsilon,
+					"continuity");
+			prevPosition = profile.getPosition();
+		}
+
+		profile.sample(totalTime * (1 - 1e-12));
+		assertEquals(goal, profile.getPosition(), kEpsilon);
+		assertEquals(0.0, profile.getVelocity(), 1e-5);
+		assertTrue(profile.isFinished(totalTime));
+		profile.sample(totalTime + 1.0);
+		assertEquals(goal, profile.getPosition());
+		assertEquals(0.0, profile.getVelocity());
+	}
+
+	@Test
+	void randomProfilesRespectLimitsAndEndAtGoal() {
+		final Random random = new Random(50);
+		for (int trial = 0; trial < 2000; trial++) {
+			final double maxVelocity = 0.5 + random.nextDouble() * 3.0;
+			final double maxAcceleration = 0.5 + random.nextDouble() * 5.0;
+			final double maxJerk = trial % 2 == 0 ? Double.POSITIVE_INFINITY : 1.0 + random.nextDouble() * 30.0;
+			final double position = random.nextDouble() * 10.0 - 5.0;
+			// Some start faster than the limit, in either direction
+			final double velocity = (random.nextDouble() * 2.0 - 1.0) * maxVelocity * (trial % 5 == 0 ? 2.0 : 1.0);
+			// Some goals are too close to stop short of
+			final double goal = trial % 7 == 0
+					? position + (random.nextDouble() - 0.5) * 0.01
+					: random.nextDouble() * 10.0 - 5.0;
+			checkProfile(new MotionProfile(maxVelocity, maxAcceleration, maxJerk), position, velocity, goal);
+		}
+	}
+
+	@Test
+	void trapezoidTakesMinimumTime() {
+		final MotionProfile profile = new MotionProfile(2.0, 1.0);
+		profile.generate(0.0, 0.0, 10.0);
+		// Two seconds each to speed up and slow down, covering 4, and 3 seconds of cruise
+		assertEquals(7.0, profile.getTotalTime(), kEpsilon);
+	}
+
+	@Test
+	void sCurveTakesMinimumTime() {
+		final MotionProfile profile = new MotionProfile(2.0, 1.0, 2.0);
+		profile.generate(0.0, 0.0, 10.0);
+		// Each speed change takes half a second longer than the trapezoid's to ramp acceleration
+		assertEquals(7.5, profile.getTotalTime(), kEpsilon);
+	}
+
+	@Test
+	void movingAwayBrakesAndReturns() {
+		final MotionProfile profile = new MotionProfile(2.0, 1.0);
+		checkProfile(profile, 0.0, -1.0, 5.0);
+		// Braking from -1 at 1 m/s^2 takes a second and reaches -0.5
+		profile.sample(1.0);
+		assertEquals(-0.5, profile.getPosition(), kEpsilon);
+		assertEquals(0.0, profile.getVelocity(), kEpsilon);
+	}
+
+	@Test
+	void tooFastToStopOvershootsAndReturns() {
+		final MotionProfile profile = new MotionProfile(2.0, 1.0, 10.0);
+		checkProfile(profile, 0.0, 2.0, 0.5);
+		double farthest = 0.0;
+		for (int k = 0; k <= kSamples; k++) {
+			profile.sample(profile.getTotalTime() * k / kSamples);
+			farthest = Math.max(farthest, profile.getPosition());
+		}
+		assertTrue(farthest > 0.5, "overshoots the goal");
+	}
+
+	@Test
+	void startingAboveTheLimitSlowsDown() {
+		final MotionProfile profile = new MotionProfile(1.0, 2.0);
+		checkProfile(profile, 0.0, 3.0, 20.0);
+		// One second at 2 m/s^2 brings 3 m/s down to the limit
+		profile.sample(1.0);
+		assertEquals(1.0, profile.getVelocity(), kEpsilon);
+	}
+
+	@Test
+	void goalAtStartIsImmediatelyFinished() {
+		final MotionProfile profile = new MotionProfile(1.0, 1.0, 5.0);
+		profile.generate(2.0, 0.0, 2.0);
+		assertEquals(0.0, profile.getTotalTime());
+		assertTrue(profile.isFinished(0.0));
+	}
+
+	@Test
+	void rejectsNonPositiveConstraints() {
+		assertThrows(IllegalArgumentException.class, () -> new MotionProfile(0.0, 1.0));
+		assertThrows(IllegalArgumentException.class, () -> new MotionProfile(1.0, -1.0));
+		assertThrows(IllegalArgumentException.class, () -> new MotionProfile(1.0, 1.0, Double.NaN));
+	}
+}
@@ -0,0 +1,160 @@
+package org.team5940.pantry.experimental.controller;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import org.team5940.pantry.lib.time.VirtualTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PIDBankTest {
+	private static final double kPeriod = 0.02;
+
+	/**
+	 * Gives the bank the references and measurements it is told to, and keeps what it writes.
+	 */
+	@SuppressWarnings("MemberName")
+	private static final class ArrayIO implements PIDBank.IO {
+		final double[] m_references;
+		final double[] m_measurements;
+		final double[] m_outputs;
+		int m_writes;
+
+		ArrayIO(int size) {
+			m_references = new double[size];
+			m_measurements = new double[size];
+			m_outputs = new double[size];
+		}
+
+		@Override
+		public void read(double[] references, double[] measurements) {
+			System.arraycopy(m_references, 0, references, 0, references.length);
+			System.arraycopy(m_measurements, 0, measurements, 0, measurements.length);
+		}
+
+		@Override
+		public void write(double[] outputs) {
+			System.arraycopy(outputs, 0, m_outputs, 0, outputs.length);
+			m_writes++;
+		}
+	}
+
+	@Test
+	@SuppressWarnings("LocalVariableName")
+	void matchesSeparateCores() {
+		final Random random = new Random(49);
+		for (int trial = 0; trial < 50; trial++) {
+			final int size = 1 + random.nextInt(8);
+			final ArrayIO io = new ArrayIO(size);
+			final PIDBank bank = new PIDBank(new VirtualTime(), size, kPeriod, io);
+			final PIDCore[] cores = new PIDCore[size];
+			for (int i = 0; i < size; i++) {
+				final double Kp = random.nextDouble();
+				final double Ki = random.nextDouble() * 0.5;
+				final double Kd = random.nextDouble() * 0.1;
+				final double Kf = random.nextDouble() * 0.01;
+				final double maximumOutput = 0.5 + random.nextDouble();
+				final double deadband = random.nextDouble() * 2.0;
+				final boolean continuous = random.nextBoolean();
+				bank.setPID(i, Kp, Ki, Kd);
+				bank.setF(i, Kf);
+				bank.setOutputRange(i, -maximumOutput, maximumOutput);
+				bank.setDeadband(i, deadband);
+				bank.setContinuous(i, continuous ? 360.0 : 0.0);
+
+				cores[i] = new PIDCore(Kp, Ki, Kd);
+				cores[i].setF(Kf);
+				cores[i].setOutputRange(-maximumOutput, maximumOutput);
+				cores[i].setDeadband(deadband);
+				cores[i].setContinuous(continuous, 360.0);
+			}
+
+			for (int step = 0; step < 500; step++) {
+				for (int i = 0; i < size; i++) {
+					io.m_references[i] = random.nextDouble() * 720.0 - 360.0;
+					io.m_measurements[i] = random.nextDouble() * 720.0 - 360.0;
+				}
+				final double dt = kPeriod * (0.5 + random.nextDouble());
+				bank.update(dt);
+				for (int i = 0; i < size; i++) {
+					final double output = cores[i].calculate(io.m_references[i], io.m_measurements[i], dt);
+					assertEquals(output, io.m_outputs[i]);
+					assertEquals(output, bank.getOutput(i));
+					assertEquals(cores[i].getError(), bank.getError(i));
+				}
+			}
+		}
+	}
+
+	@Test
+	void resetClearsOnlyThatController() {
+		final ArrayIO io = new ArrayIO(2);
+		final PIDBank bank = new PIDBank(new VirtualTime(), 2, kPeriod, io);
+		bank.setPID(0.0, 1.0, 0.0);
+		io.m_references[0] = 0.5;
+		io.m_references[1] = 0.5;
+		for (int step = 0; step < 10; step++) {
+			bank.update();
+		}
+		assertEquals(0.1, io.m_outputs[0], 1e-12);
+		assertEquals(0.1, io.m_outputs[1], 1e-12);
+
+		bank.reset(0);
+		bank.update();
+		assertEquals(0.01, io.m_outputs[0], 1e-12);
+		assertEquals(0.11, io.m_outputs[1], 1e-12);
+	}
+
+	@Test
+	void settersTakeEffectOnTheNextUpdate() {
+		final ArrayIO io = new ArrayIO(3);
+		final PIDBank bank = new PIDBank(new VirtualTime(), 3, kPeriod, io);
+		io.m_references[1] = 0.5;
+		bank.update();
+		assertEquals(0.0, io.m_outputs[1]);
+
+		bank.setPID(1, 1.0, 0.0, 0.0);
+		assertEquals(1.0, bank.getP(1));
+		assertEquals(0.0, bank.getP(0));
+		bank.update();
+		assertEquals(0.5, io.m_outputs[1]);
+		assertEquals(0.0, io.m_outputs[0]);
+	}
+
+	@Test
+	void runsOnItsExecutorWhileEnabled() {
+		final VirtualTime time = new VirtualTime();
+		final ArrayIO io = new ArrayIO(2);
+		final PIDBank bank = new PIDBank(time, 2, kPeriod, io);
+		bank.setPID(0.1, 0.5, 0.01);
+		final PIDCore core = new PIDCore(0.1, 0.5, 0.01);
+		io.m_references[0] = 1.0;
+		io.m_references[1] = 1.0;
+
+		bank.enable();
+		assertTrue(bank.isEnabled());
+		double expected = 0.0;
+		double last = 0.0;
+		for (int run = 1; run <= 5; run++) {
+			time.advanceTo(run * kPeriod);
+			// The first run has nothing to measure from, so it is given the period
+			expected = core.calculate(1.0, 0.0, run == 1 ? kPeriod : run * kPeriod - last);
+			last = run * kPeriod;
+		}
+		assertEquals(5, io.m_writes);
+		assertEquals(expected, io.m_outputs[0], 1e-12);
+		assertEquals(expected, io.m_outputs[1], 1e-12);
+
+		bank.disable();
+		assertFalse(bank.isEnabled());
+		assertEquals(6, io.m_writes);
+		assertEquals(0.0, io.m_outputs[0]);
+		assertEquals(0.0, io.m_outputs[1]);
+
+		time.advance(1.0);
+		assertEquals(6, io.m_writes);
+	}
+}
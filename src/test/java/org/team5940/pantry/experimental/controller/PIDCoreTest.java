@@ -0,0 +1,286 @@
+package org.team5940.pantry.experimental.controller;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.team1323.lib.util.SynchronousPIDF;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class PIDCoreTest {
+	private static final double kEpsilon = 1e-12;
+	private static final int kSteps = 20000;
+
+	/**
+	 * The math of PIDController.calculate() before it was moved into PIDCore, with the fixed period
+	 * replaced by dt.
+	 */
+	@SuppressWarnings("MemberName")
+	private static final class BaselinePIDController {
+		double m_Kp;
+		double m_Ki;
+		double m_Kd;
+		double m_minimumOutput = -1.0;
+		double m_maximumOutput = 1.0;
+		double m_inputRange;
+		boolean m_continuous;
+		double m_prevError;
+		double m_totalError;
+
+		double getContinuousError(double error) {
+			if (m_continuous && m_inputRange > 0) {
+				error %= m_inputRange;
+				if (Math.abs(error) > m_inputRange / 2) {
+					if (error > 0) {
+						return error - m_inputRange;
+					} else {
+						return error + m_inputRange;
+					}
+				}
+			}
+			return error;
+		}
+
+		double calculate(double reference, double measurement, double dt) {
+			final double error = getContinuousError(reference - measurement);
+			double totalError = m_totalError;
+			if (m_Ki != 0) {
+				totalError = clamp(totalError + error * dt, m_minimumOutput / m_Ki, m_maximumOutput / m_Ki);
+			}
+			double output = clamp(m_Kp * error + m_Ki * totalError + m_Kd * (error - m_prevError) / dt,
+					m_minimumOutput, m_maximumOutput);
+			m_prevError = error;
+			m_totalError = totalError;
+			return output;
+		}
+
+		void reset() {
+			m_prevError = 0;
+			m_totalError = 0;
+		}
+	}
+
+	/**
+	 * The math of SynchronousPIDF.calculate() before it was moved into PIDCore.
+	 */
+	@SuppressWarnings("MemberName")
+	private static final class BaselineSynchronousPIDF {
+		double m_P;
+		double m_I;
+		double m_D;
+		double m_F;
+		double m_maximumOutput = 1.0;
+		double m_minimumOutput = -1.0;
+		double m_maximumInput;
+		double m_minimumInput;
+		boolean m_continuous;
+		double m_prevError;
+		double m_totalError;
+		double m_setpoint;
+		double m_error;
+		double m_deadband;
+
+		double calculate(double input, double dt) {
+			m_error = m_setpoint - input;
+			if (m_continuous) {
+				if (Math.abs(m_error) > (m_maximumInput - m_minimumInput) / 2) {
+					if (m_error > 0) {
+						m_error = m_error - m_maximumInput + m_minimumInput;
+					} else {
+						m_error = m_error + m_maximumInput - m_minimumInput;
+					}
+				}
+			}
+
+			if ((m_error * m_P < m_maximumOutput) && (m_error * m_P > m_minimumOutput)) {
+				m_totalError += m_error * dt;
+			} else {
+				m_totalError = 0;
+			}
+
+			double proportionalError = Math.abs(m_error) < m_deadband ? 0 : m_error;
+
+			double result = m_P * proportionalError + m_I * m_totalError + m_D * (m_error - m_prevError) / dt
+					+ m_F * m_setpoint;
+			m_prevError = m_error;
+			return clamp(result, m_minimumOutput, m_maximumOutput);
+		}
+
+		void reset() {
+			m_prevError = 0;
+			m_totalError = 0;
+		}
+	}
+
+	private static double clamp(double value, double low, double high) {
+		return Math.max(low, Math.min(value, high));
+	}
+
+	@Test
+	void clampModeMatchesBaselinePIDController() {
+		Random random = new Random(48);
+		for (int trial = 0; trial < 20; trial++) {
+			BaselinePIDController baseline = new BaselinePIDController();
+			baseline.m_Kp = random.nextDouble();
+			baseline.m_Ki = trial % 5 == 0 ? 0.0 : random.nextDouble();
+			baseline.m_Kd = random.nextDouble() * 0.1;
+			PIDCore core = new PIDCore(baseline.m_Kp, baseline.m_Ki, baseline.m_Kd);
+			if (trial % 2 == 0) {
+				baseline.m_continuous = true;
+				baseline.m_inputRange = 360.0;
+				core.setContinuous(true, 360.0);
+			}
+			if (trial % 3 == 0) {
+				baseline.m_minimumOutput = -0.5;
+				baseline.m_maximumOutput = 0.7;
+				core.setOutputRange(-0.5, 0.7);
+			}
+
+			for (int i = 0; i < kSteps; i++) {
+				if (i % 4999 == 0) {
+					baseline.reset();
+					core.reset();
+				}
+				double reference = random.nextDouble() * 360.0 - 180.0;
+				double measurement = random.nextDouble() * 360.0 - 180.0;
+				double dt = 0.002 + random.nextDouble() * 0.03;
+				assertEquals(baseline.calculate(reference, measurement, dt), core.calculate(reference, measurement, dt),
+						kEpsilon, "trial " + trial + " step " + i);
+				assertEquals(baseline.m_totalError, core.getTotalError(), kEpsilon);
+			}
+		}
+	}
+
+	@Test
+	void resetOutsideProportionalBandModeMatchesBaselineSynchronousPIDF() {
+		Random random = new Random(1323);
+		for (int trial = 0; trial < 20; trial++) {
+			BaselineSynchronousPIDF baseline = new BaselineSynchronousPIDF();
+			baseline.m_P = random.nextDouble() * 0.01;
+			baseline.m_I = random.nextDouble() * 0.01;
+			baseline.m_D = random.nextDouble() * 0.001;
+			baseline.m_F = random.nextDouble() * 0.001;
+			PIDCore core = new PIDCore(baseline.m_P, baseline.m_I, baseline.m_D);
+			core.setF(baseline.m_F);
+			core.setIntegralMode(PIDCore.IntegralMode.kResetOutsideProportionalBand);
+			if (trial % 2 == 0) {
+				// Errors stay within one and a half ranges, where the old single wrap and the modulo agree
+				baseline.m_continuous = true;
+				baseline.m_minimumInput = -180.0;
+				baseline.m_maximumInput = 180.0;
+				core.setContinuous(true, 360.0);
+			}
+			if (trial % 3 == 0) {
+				baseline.m_deadband = 2.0;
+				core.setDeadband(2.0);
+				baseline.m_minimumOutput = -0.5;
+				baseline.m_maximumOutput = 0.7;
+				core.setOutputRange(-0.5, 0.7);
+			}
+
+			for (int i = 0; i < kSteps; i++) {
+				if (i % 500 == 0) {
+					baseline.m_setpoint = random.nextDouble() * 360.0 - 180.0;
+				}
+				if (i % 4999 == 0) {
+					baseline.reset();
+					core.reset();
+				}
+				double measurement = random.nextDouble() * 360.0 - 180.0;
+				double dt = 0.002 + random.nextDouble() * 0.03;
+				assertEquals(baseline.calculate(measurement, dt), core.calculate(baseline.m_setpoint, measurement, dt),
+						kEpsilon, "trial " + trial + " step " + i);
+				assertEquals(baseline.m_error, core.getError(), kEpsilon);
+				assertEquals(baseline.m_totalError, core.getTotalError(), kEpsilon);
+			}
+		}
+	}
+
+	@Test
+	void clampModeLimitsIntegralTermToOutputRange() {
+		PIDCore core = new PIDCore(0.0, 2.0, 0.0);
+		core.setOutputRange(-0.5, 0.8);
+		for (int i = 0; i < 1000; i++) {
+			core.calculate(10.0, 0.0, 0.02);
+		}
+		assertEquals(0.8 / 2.0, core.getTotalError(), kEpsilon);
+		for (int i = 0; i < 1000; i++) {
+			core.calculate(-10.0, 0.0, 0.02);
+		}
+		assertEquals(-0.5 / 2.0, core.getTotalError(), kEpsilon);
+	}
+
+	@Test
+	void clampModeCountsFeedForwardAgainstOutputRange() {
+		PIDCore core = new PIDCore(0.0, 2.0, 0.0);
+		for (int i = 0; i < 1000; i++) {
+			core.calculate(10.0, 0.0, 0.6, 0.02);
+		}
+		assertEquals(1.0, core.getOutput(), kEpsilon);
+		assertEquals((1.0 - 0.6) / 2.0, core.getTotalError(), kEpsilon);
+		for (int i = 0; i < 1000; i++) {
+			core.calculate(-10.0, 0.0, 0.6, 0.02);
+		}
+		assertEquals(-1.0, core.getOutput(), kEpsilon);
+		assertEquals((-1.0 - 0.6) / 2.0, core.getTotalError(), kEpsilon);
+	}
+
+	@Test
+	void resetOutsideProportionalBandModeClearsIntegral() {
+		PIDCore core = new PIDCore(0.1, 1.0, 0.0);
+		core.setIntegralMode(PIDCore.IntegralMode.kResetOutsideProportionalBand);
+		core.calculate(1.0, 0.0, 0.02);
+		core.calculate(1.0, 0.0, 0.02);
+		assertEquals(0.04, core.getTotalError(), kEpsilon);
+		// Kp * error saturates the output on its own
+		core.calculate(20.0, 0.0, 0.02);
+		assertEquals(0.0, core.getTotalError());
+	}
+
+	@Test
+	void derivativeUsesMeasuredDt() {
+		PIDCore core = new PIDCore(0.0, 0.0, 0.1);
+		core.setOutputRange(-100.0, 100.0);
+		core.calculate(1.0, 0.0, 0.02);
+		assertEquals(0.1 * (3.0 - 1.0) / 0.05, core.calculate(3.0, 0.0, 0.05), kEpsilon);
+	}
+
+	/**
+	 * Behaviour change: SynchronousPIDF wrapped a continuous error only once, so errors more than one
+	 * and a half ranges away came out wrong. The shared core wraps with a modulo, as PIDController
+	 * always did.
+	 */
+	@Test
+	void continuousErrorWrapsAnyNumberOfRanges() {
+		assertEquals(5.0, PIDCore.continuousError(725.0, 360.0), kEpsilon);
+		assertEquals(-5.0, PIDCore.continuousError(-725.0, 360.0), kEpsilon);
+		assertEquals(-170.0, PIDCore.continuousError(190.0, 360.0), kEpsilon);
+		assertEquals(725.0, PIDCore.continuousError(725.0, 0.0), kEpsilon);
+
+		SynchronousPIDF pidf = new SynchronousPIDF(0.001, 0.0, 0.0);
+		pidf.setInputRange(-180.0, 180.0);
+		pidf.setContinuous();
+		pidf.setSetpoint(180.0);
+		pidf.calculate(-545.0, 0.02);
+		// 725 degrees is two full turns and 5 degrees; the old single wrap gave 365
+		assertEquals(5.0, pidf.getError(), kEpsilon);
+	}
+
+	/**
+	 * Behaviour change: SynchronousPIDF.reset() now clears getError() along with the rest of the
+	 * error history, where it used to leave the last error behind.
+	 */
+	@Test
+	void synchronousPIDFResetClearsError() {
+		SynchronousPIDF pidf = new SynchronousPIDF(0.1, 0.01, 0.0);
+		pidf.setSetpoint(10.0);
+		pidf.calculate(2.0, 0.02);
+		assertNotEquals(0.0, pidf.getError());
+
+		pidf.reset();
+		assertEquals(0.0, pidf.getError());
+		assertEquals(0.0, pidf.get());
+	}
+}
@@ -0,0 +1,114 @@
+package org.team5940.pantry.experimental.controller;
+
+import org.junit.jupiter.api.Test;
+
+import org.team5940.pantry.lib.time.VirtualTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProfiledPIDControllerTest {
+	private static final double kPeriod = 0.01;
+
+	/**
+	 * A mass whose acceleration is the controller output.
+	 */
+	@SuppressWarnings("MemberName")
+	private static final class Mass {
+		double m_position;
+		double m_velocity;
+
+		void accelerate(double acceleration) {
+			m_velocity += acceleration * kPeriod;
+			m_position += m_velocity * kPeriod;
+		}
+	}
+
+	private static ProfiledPIDController createController() {
+		final ProfiledPIDController controller = new ProfiledPIDController(8.0, 0.0, 0.5, 1.0, 2.0,
+				20.0, kPeriod);
+		controller.setOutputRange(-10.0, 10.0);
+		controller.setFeedForward(0.0, 1.0);
+		controller.setAbsoluteTolerance(0.01);
+		return controller;
+	}
+
+	@Test
+	void followsGoalChangesOnAsynchronousRunner() {
+		final VirtualTime time = new VirtualTime();
+		final ProfiledPIDController controller = createController();
+		final Mass mass = new Mass();
+		final double[] goal = {1.5};
+		final AsynchronousControllerRunner runner = new AsynchronousControllerRunner(time, controller,
+				() -> goal[0], () -> mass.m_position, mass::accelerate);
+
+		runner.enable();
+		time.advance(1.0);
+		assertFalse(controller.atGoal());
+		// Turn back before reaching the first goal
+		goal[0] = -0.5;
+		time.advance(4.0);
+		runner.disable();
+
+		assertTrue(controller.atGoal());
+		assertEquals(-0.5, controller.getSetpoint());
+		assertEquals(0.0, controller.getSetpointVelocity());
+		assertEquals(-0.5, mass.m_position, 0.01);
+	}
+
+	@Test
+	void reachesGoalOnSynchronousRunner() {
+		final VirtualTime time = new VirtualTime();
+		final ProfiledPIDController controller = createController();
+		final Mass mass = new Mass();
+		final SynchronousControllerRunner runner = new SynchronousControllerRunner(time, controller,
+				() -> 2.0, () -> mass.m_position, mass::accelerate);
+
+		for (int i = 0; i < 500; i++) {
+			time.advance(kPeriod);
+			runner.run();
+		}
+
+		assertTrue(controller.atGoal());
+		assertEquals(2.0, mass.m_position, 0.01);
+	}
+
+	@Test
+	void setpointRespectsConstraints() {
+		final ProfiledPIDController controller = createController();
+		double prevSetpoint = 0.0;
+		for (int i = 0; i < 500; i++) {
+			controller.calculate(3.0, 0.0);
+			assertTrue(Math.abs(controller.getSetpointVelocity()) <= 1.0 + 1e-9);
+			assertTrue(Math.abs(controller.getSetpoint() - prevSetpoint) <= kPeriod + 1e-9);
+			prevSetpoint = controller.getSetpoint();
+		}
+
+		// Slowing the profile down mid-motion regenerates it from where the setpoint is
+		controller.reset();
+		controller.calculate(3.0, 0.0);
+		controller.setConstraints(0.25, 2.0, 20.0);
+		for (int i = 0; i < 100; i++) {
+			controller.calculate(3.0, 0.0);
+		}
+		assertEquals(0.25, controller.getSetpointVelocity(), 1e-9);
+	}
+
+	@Test
+	void feedForwardLimitsIntegralWindup() {
+		final ProfiledPIDController controller = new ProfiledPIDController(0.0, 1.0, 0.0, 1.0, 100.0);
+		controller.setFeedForward(0.8, 0.0);
+		// Cruising at full speed with the mechanism stuck, the feed forward alone gives 0.8
+		for (int i = 0; i < 500; i++) {
+			assertTrue(controller.calculate(100.0, 0.0) <= 1.0);
+		}
+		assertEquals(1.0, controller.getOutput());
+
+		// Once the feed forward drops away, the integral holds only the 0.2 that was left, plus this
+		// calculation's error
+		controller.setFeedForward(0.0, 0.0);
+		final double output = controller.calculate(100.0, 0.0);
+		assertEquals(0.2 + controller.getError() * 0.02, output, 1e-9);
+	}
+}
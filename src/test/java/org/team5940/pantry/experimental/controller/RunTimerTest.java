@@ -0,0 +1,48 @@
+package org.team5940.pantry.experimental.controller;
+
+import org.junit.jupiter.api.Test;
+
+import org.team5940.pantry.lib.time.VirtualTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RunTimerTest {
+	@Test
+	void measuresTimeBetweenRuns() {
+		final VirtualTime time = new VirtualTime();
+		final RunTimer timer = new RunTimer(time, 0.02);
+
+		// Nothing to measure the first run from
+		assertEquals(0.02, timer.begin());
+		timer.end();
+		time.advance(0.03);
+		assertEquals(0.03, timer.begin(), 1e-12);
+		timer.end();
+
+		timer.restart();
+		time.advance(5.0);
+		assertEquals(0.02, timer.begin());
+		timer.end();
+		time.advance(0.01);
+		assertEquals(0.01, timer.begin(), 1e-12);
+		timer.end();
+	}
+
+	@Test
+	void keepsStatisticsOnlyWhileEnabled() {
+		final RunTimer timer = new RunTimer(new VirtualTime(), 0.02);
+		assertNull(timer.getStatistics());
+
+		final ControllerStatistics statistics = timer.enableStatistics();
+		assertSame(statistics, timer.enableStatistics(), "enabling twice keeps the statistics");
+		assertSame(statistics, timer.getStatistics());
+
+		timer.disableStatistics();
+		assertNull(timer.getStatistics());
+		// Runs carry on without them
+		timer.begin();
+		timer.end();
+	}
+}